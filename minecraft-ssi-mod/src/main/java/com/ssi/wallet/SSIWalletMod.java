@@ -10,9 +10,6 @@ import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
@@ -21,11 +18,6 @@ import java.util.concurrent.CompletableFuture;
 @EventBusSubscriber(modid = "ssi_wallet", bus = EventBusSubscriber.Bus.FORGE, value = Dist.CLIENT)
 public class SSIWalletMod {
 
-    private static final String WALLET_BASE_URL = "http://localhost:3001";
-    private static final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
-
     @SubscribeEvent
     public static void onClientChat(ClientChatEvent event) {
         String message = event.getMessage();
@@ -91,32 +83,11 @@ public class SSIWalletMod {
     private static void sendVerificationRequest(LocalPlayer player, String verificationType, String playerUUID) {
         player.sendSystemMessage(Component.literal("§e🔍 Sending verification request..."));
         
-        // Create JSON payload - request all available attributes
-        String jsonPayload = String.format("""
-            {
-              "type": "verification",
-              "requester": {
-                "playerUUID": "%s",
-                "playerName": "%s"
-              },
-              "requestedAttributes": ["name", "degree", "university", "certification", "institution", "level", "age", "country"],
-              "timestamp": "%s"
-            }
-            """, 
-            playerUUID,
-            player.getName().getString(),
-            java.time.Instant.now().toString()
-        );
+        // Request all available attributes
+        String jsonPayload = WalletMessages.json(WalletMessages.VerificationRequest.of(playerUUID, player.getName().getString()));
 
         // Send HTTP request to web wallet
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(WALLET_BASE_URL + "/api/minecraft/verify"))
-                .header("Content-Type", "application/json")
-                .timeout(Duration.ofSeconds(30))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                .build();
-
-        CompletableFuture<HttpResponse<String>> futureResponse = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> futureResponse = WalletHttp.postJson("/api/minecraft/verify", jsonPayload, Duration.ofSeconds(30));
         
         futureResponse.thenAccept(response -> {
             if (response.statusCode() == 200) {
@@ -139,20 +110,9 @@ public class SSIWalletMod {
 
 
     private static void setWalletMode(LocalPlayer player, String mode) {
-        String jsonPayload = String.format("""
-            {
-              "mode": "%s",
-              "playerUUID": "%s"
-            }
-            """, mode, player.getStringUUID());
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(WALLET_BASE_URL + "/api/wallet/mode"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                .build();
+        String jsonPayload = WalletMessages.json(new WalletMessages.WalletMode(mode, player.getStringUUID()));
 
-        CompletableFuture<HttpResponse<String>> futureResponse = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> futureResponse = WalletHttp.postJson("/api/wallet/mode", jsonPayload);
         
         futureResponse.thenAccept(response -> {
             if (response.statusCode() != 200) {
@@ -162,13 +122,7 @@ public class SSIWalletMod {
     }
 
     private static void checkWalletStatus(LocalPlayer player) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(WALLET_BASE_URL + "/api/wallet/mode"))
-                .header("Content-Type", "application/json")
-                .GET()
-                .build();
-
-        CompletableFuture<HttpResponse<String>> futureResponse = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> futureResponse = WalletHttp.get("/api/wallet/mode");
         
         futureResponse.thenAccept(response -> {
             if (response.statusCode() == 200) {
@@ -11,19 +11,13 @@ import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
 public class SSIWalletPlugin extends JavaPlugin implements Listener, CommandExecutor {
 
-    private static final String WALLET_BASE_URL = "http://localhost:3001";
-    private static final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    private static final String WALLET_BASE_URL = WalletHttp.WALLET_BASE_URL;
 
     @Override
     public void onEnable() {
@@ -131,32 +125,11 @@ public class SSIWalletPlugin extends JavaPlugin implements Listener, CommandExec
     private void sendVerificationRequest(Player player) {
         player.sendMessage(ChatColor.YELLOW + "🔍 Sending verification request...");
         
-        // Create JSON payload - request all available attributes
-        String jsonPayload = String.format("""
-            {
-              "type": "verification",
-              "requester": {
-                "playerUUID": "%s",
-                "playerName": "%s"
-              },
-              "requestedAttributes": ["name", "degree", "university", "certification", "institution", "level", "age", "country"],
-              "timestamp": "%s"
-            }
-            """, 
-            player.getUniqueId().toString(),
-            player.getName(),
-            java.time.Instant.now().toString()
-        );
+        // Request all available attributes
+        String jsonPayload = WalletMessages.json(WalletMessages.VerificationRequest.of(player.getUniqueId(), player.getName()));
 
         // Send HTTP request to web wallet
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(WALLET_BASE_URL + "/api/minecraft/verify"))
-                .header("Content-Type", "application/json")
-                .timeout(Duration.ofSeconds(30))
-                .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                .build();
-
-        CompletableFuture<HttpResponse<String>> futureResponse = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> futureResponse = WalletHttp.postJson("/api/minecraft/verify", jsonPayload, Duration.ofSeconds(30));
         
         futureResponse.thenAccept(response -> {
             if (response.statusCode() == 200) {
@@ -178,20 +151,9 @@ public class SSIWalletPlugin extends JavaPlugin implements Listener, CommandExec
     }
 
     private void setWalletMode(Player player, String mode) {
-        String jsonPayload = String.format("""
-            {
-              "mode": "%s",
-              "playerUUID": "%s"
-            }
-            """, mode, player.getUniqueId().toString());
+        String jsonPayload = WalletMessages.json(new WalletMessages.WalletMode(mode, player.getUniqueId().toString()));
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(WALLET_BASE_URL + "/api/wallet/mode"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                .build();
-
-        CompletableFuture<HttpResponse<String>> futureResponse = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> futureResponse = WalletHttp.postJson("/api/wallet/mode", jsonPayload);
         
         futureResponse.thenAccept(response -> {
             if (response.statusCode() != 200) {
@@ -201,13 +163,7 @@ public class SSIWalletPlugin extends JavaPlugin implements Listener, CommandExec
     }
 
     private void checkWalletStatus(Player player) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(WALLET_BASE_URL + "/api/wallet/mode"))
-                .header("Content-Type", "application/json")
-                .GET()
-                .build();
-
-        CompletableFuture<HttpResponse<String>> futureResponse = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> futureResponse = WalletHttp.get("/api/wallet/mode");
         
         futureResponse.thenAccept(response -> {
             if (response.statusCode() == 200) {
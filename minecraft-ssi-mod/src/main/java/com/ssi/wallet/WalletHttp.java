@@ -0,0 +1,48 @@
+package com.ssi.wallet;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+// Shared async transport to the web wallet for both the client mod and the Bukkit plugin.
+// One HttpClient means one connection pool with keep-alive (and HTTP/2 where the wallet offers it)
+// instead of a client per class; every call returns a CompletableFuture and blocks no thread.
+public final class WalletHttp {
+
+    public static final String WALLET_BASE_URL = "http://localhost:3001";
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private WalletHttp() {
+    }
+
+    public static CompletableFuture<HttpResponse<String>> get(String path) {
+        return send(request(path, DEFAULT_TIMEOUT).GET().build());
+    }
+
+    public static CompletableFuture<HttpResponse<String>> postJson(String path, String json) {
+        return postJson(path, json, DEFAULT_TIMEOUT);
+    }
+
+    public static CompletableFuture<HttpResponse<String>> postJson(String path, String json, Duration timeout) {
+        return send(request(path, timeout).POST(HttpRequest.BodyPublishers.ofString(json)).build());
+    }
+
+    private static HttpRequest.Builder request(String path, Duration timeout) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(WALLET_BASE_URL + path))
+                .header("Content-Type", "application/json")
+                .timeout(timeout);
+    }
+
+    private static CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
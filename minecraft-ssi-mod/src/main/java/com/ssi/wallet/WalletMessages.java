@@ -0,0 +1,60 @@
+package com.ssi.wallet;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Typed request bodies the mod and the Bukkit plugin send to the web wallet. Serialised with
+// Jackson (already a dependency of this module) through writers resolved once per type, so names
+// and quotes in player data are escaped properly instead of being pasted into a format string.
+public final class WalletMessages {
+
+    // Everything the wallet can prove; the mod asks for all of it
+    public static final List<String> ALL_ATTRIBUTES =
+            List.of("name", "degree", "university", "certification", "institution", "level", "age", "country");
+
+    public record Requester(String playerUUID, String playerName) {
+    }
+
+    public record VerificationRequest(String type, Requester requester, List<String> requestedAttributes, String timestamp) {
+        public static VerificationRequest of(UUID playerUUID, String playerName) {
+            return of(playerUUID.toString(), playerName);
+        }
+
+        public static VerificationRequest of(String playerUUID, String playerName) {
+            return new VerificationRequest("verification", new Requester(playerUUID, playerName), ALL_ATTRIBUTES,
+                    Instant.now().toString());
+        }
+    }
+
+    public record WalletMode(String mode, String playerUUID) {
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter VERIFICATION_REQUEST = MAPPER.writerFor(VerificationRequest.class);
+    private static final ObjectWriter WALLET_MODE = MAPPER.writerFor(WalletMode.class);
+
+    private WalletMessages() {
+    }
+
+    public static String json(VerificationRequest request) {
+        return write(VERIFICATION_REQUEST, request);
+    }
+
+    public static String json(WalletMode mode) {
+        return write(WALLET_MODE, mode);
+    }
+
+    private static String write(ObjectWriter writer, Object message) {
+        try {
+            return writer.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            // Plain records of strings always serialise; anything else is a programming error
+            throw new IllegalStateException("Cannot serialise " + message, e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ssi.verification;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+
+// Backend answers and invitation URLs shaped like the real ones, built from a fixed seed so every
+// run at every commit parses and encodes exactly the same bytes.
+final class BenchmarkPayloads {
+    
+    static final String CONNECTION_ID = "3fa85f64-5717-4562-b3fc-2c963f66afa6";
+    static final String CRED_DEF_ID = "AbH2V5oKsrPXbzbKKrpU3f:3:CL:2872881:University-Certificate";
+    
+    private BenchmarkPayloads() {
+    }
+    
+    // GET /api/minecraft/verify/<id> on the web wallet once the player has shared a proof;
+    // the state lives in the nested session
+    static String verificationStatus() {
+        return "{\"success\":true,\"session\":{\"id\":\"verification-1712000000000\",\"type\":\"web_proof_request\","
+            + "\"verificationSessionId\":\"web_1712000000000_Steve\",\"title\":\"Minecraft Web Verification\","
+            + "\"message\":\"Steve requests verification via web wallet (Bifold-compatible)\","
+            + "\"timestamp\":\"2024-04-01T12:00:00Z\","
+            + "\"requester\":{\"playerName\":\"Steve\",\"playerUUID\":\"" + new UUID(42, 7) + "\"},"
+            + "\"requestedAttributes\":[\"name\",\"email\",\"department\",\"issuer_did\",\"age\"],"
+            + "\"status\":\"verified\",\"createdAt\":\"2024-04-01T12:00:00Z\",\"proofReceived\":\"2024-04-01T12:00:30Z\","
+            + "\"verificationResult\":{\"isValid\":true,\"message\":\"Credential verified\"},"
+            + "\"acaPyTrustValidation\":true}}";
+    }
+    
+    // GET /v2/connections?connectionId=... on the verifier API
+    static String connectionState() {
+        return "{\"connection_id\":\"" + CONNECTION_ID + "\",\"state\":\"active\",\"rfc23_state\":\"completed\","
+            + "\"their_label\":\"Bifold Wallet\",\"their_role\":\"invitee\",\"invitation_mode\":\"once\","
+            + "\"accept\":\"auto\",\"created_at\":\"2024-04-01T12:00:00Z\",\"updated_at\":\"2024-04-01T12:00:05Z\"}";
+    }
+    
+    // One present-proof 2.0 record as ACA-Py returns it, full indy proof included (about 10 KB)
+    static String proofRecord(Random random, String presExId, String connectionId, String state) {
+        StringBuilder json = new StringBuilder(12_000);
+        json.append("{\"state\":\"").append(state).append("\",\"pres_ex_id\":\"").append(presExId)
+            .append("\",\"connection_id\":\"").append(connectionId).append("\",\"role\":\"verifier\",")
+            .append("\"initiator\":\"self\",\"verified\":\"true\",\"auto_present\":false,\"trace\":false,")
+            .append("\"created_at\":\"2024-04-01T12:00:06Z\",\"updated_at\":\"2024-04-01T12:00:30Z\",");
+        json.append("\"by_format\":{\"pres_request\":{\"indy\":{\"name\":\"Minecraft Server Verification\",")
+            .append("\"version\":\"1.0\",\"nonce\":\"").append(digits(random, 24)).append("\",\"requested_attributes\":{");
+        String[] attributes = {"name", "email", "department", "issuer_did", "age"};
+        for (int i = 0; i < attributes.length; i++) {
+            if (i > 0) json.append(',');
+            json.append("\"attr_").append(attributes[i]).append("\":{\"name\":\"").append(attributes[i])
+                .append("\",\"restrictions\":[{\"cred_def_id\":\"").append(CRED_DEF_ID).append("\"}]}");
+        }
+        json.append("},\"requested_predicates\":{}}},\"pres\":{\"indy\":{\"proof\":{\"proofs\":[{\"primary_proof\":{");
+        json.append("\"eq_proof\":{\"revealed_attrs\":{");
+        for (int i = 0; i < attributes.length; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(attributes[i]).append("\":\"").append(digits(random, 77)).append('"');
+        }
+        json.append("},\"a_prime\":\"").append(digits(random, 617)).append("\",\"e\":\"").append(digits(random, 160))
+            .append("\",\"v\":\"").append(digits(random, 1180)).append("\",\"m\":{\"master_secret\":\"")
+            .append(digits(random, 230)).append("\"},\"m2\":\"").append(digits(random, 230)).append("\"},");
+        json.append("\"ge_proofs\":[]},\"non_revoc_proof\":null}],\"aggregated_proof\":{\"c_hash\":\"")
+            .append(digits(random, 77)).append("\",\"c_list\":[");
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) json.append(',');
+            json.append('[');
+            for (int j = 0; j < 256; j++) {
+                if (j > 0) json.append(',');
+                json.append(random.nextInt(256));
+            }
+            json.append(']');
+        }
+        json.append("]}},\"requested_proof\":{\"revealed_attrs\":{");
+        for (int i = 0; i < attributes.length; i++) {
+            if (i > 0) json.append(',');
+            json.append("\"attr_").append(attributes[i]).append("\":{\"sub_proof_index\":0,\"raw\":\"value-")
+                .append(i).append("\",\"encoded\":\"").append(digits(random, 77)).append("\"}");
+        }
+        json.append("},\"self_attested_attrs\":{},\"unrevealed_attrs\":{},\"predicates\":{}},")
+            .append("\"identifiers\":[{\"schema_id\":\"AbH2V5oKsrPXbzbKKrpU3f:2:University-Certificate:1.0\",")
+            .append("\"cred_def_id\":\"").append(CRED_DEF_ID).append("\",\"rev_reg_id\":null,\"timestamp\":null}]}}}}");
+        return json.toString();
+    }
+    
+    // GET /present-proof-2.0/records: count records, the one for CONNECTION_ID last
+    static String proofRecords(int count) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            boolean target = i == count - 1;
+            json.append(proofRecord(random, new UUID(random.nextLong(), random.nextLong()).toString(),
+                target ? CONNECTION_ID : new UUID(random.nextLong(), random.nextLong()).toString(),
+                target ? "done" : "request-sent"));
+        }
+        return json.append("]}").toString();
+    }
+    
+    // An out-of-band invitation URL of the length ACA-Py produces (base64 JSON in the oob query)
+    static String invitationUrl() {
+        byte[] invitation = new byte[360];
+        new Random(42).nextBytes(invitation);
+        return "http://localhost:8020?oob=" + Base64.getUrlEncoder().withoutPadding().encodeToString(invitation);
+    }
+    
+    private static String digits(Random random, int length) {
+        char[] digits = new char[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(digits);
+    }
+}
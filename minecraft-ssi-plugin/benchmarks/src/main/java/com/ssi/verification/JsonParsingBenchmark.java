@@ -0,0 +1,110 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Reading backend answers. The legacy* methods are the original code (a full JsonParser tree, or
+// String.contains over the body) kept as a fixed baseline; the others call what the plugin uses
+// now: typed BackendProtocol decoding and the streaming ProofRecordReader.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonParsingBenchmark {
+    
+    private String status;
+    private String connection;
+    private String proofRecord;
+    private String proofRecords;
+    
+    @Setup
+    public void setUp() {
+        status = BenchmarkPayloads.verificationStatus();
+        connection = BenchmarkPayloads.connectionState();
+        proofRecord = BenchmarkPayloads.proofRecord(new Random(42), "b6a8f2d0-1c1e-4f5a-9a57-0d5b1f3c2e11",
+            BenchmarkPayloads.CONNECTION_ID, "done");
+        proofRecords = BenchmarkPayloads.proofRecords(20);
+    }
+    
+    @Benchmark
+    public boolean legacyStatusContains() {
+        return status.contains("\"status\":\"verified\"") || status.contains("\"verified\":true");
+    }
+    
+    @Benchmark
+    public boolean legacyStatusTree() {
+        JsonObject session = JsonParser.parseString(status).getAsJsonObject().getAsJsonObject("session");
+        return "verified".equals(session.get("status").getAsString())
+            || session.getAsJsonObject("verificationResult").get("isValid").getAsBoolean();
+    }
+    
+    @Benchmark
+    public boolean typedStatus() throws IOException {
+        return BackendProtocol.decode(200, new StringReader(status), BackendProtocol.VerificationStatus.class)
+            .body().isVerified();
+    }
+    
+    @Benchmark
+    public boolean legacyConnectionTree() {
+        JsonObject json = JsonParser.parseString(connection).getAsJsonObject();
+        return "active".equals(json.get("state").getAsString());
+    }
+    
+    @Benchmark
+    public boolean typedConnection() throws IOException {
+        return BackendProtocol.decode(200, new StringReader(connection), BackendProtocol.ConnectionState.class)
+            .body().isActive();
+    }
+    
+    @Benchmark
+    public String legacyProofRecordTree() {
+        JsonObject record = JsonParser.parseString(proofRecord).getAsJsonObject();
+        return record.getAsJsonObject("by_format").getAsJsonObject("pres").getAsJsonObject("indy")
+            .getAsJsonArray("identifiers").get(0).getAsJsonObject().get("cred_def_id").getAsString();
+    }
+    
+    @Benchmark
+    public JsonObject streamedProofRecord() throws IOException {
+        return ProofRecordReader.readRecord(new StringReader(proofRecord));
+    }
+    
+    // Looking up one connection's record in a list of 20, as the per-session fallback poll did
+    @Benchmark
+    public String legacyProofRecordsTree() {
+        JsonArray records = JsonParser.parseString(proofRecords).getAsJsonObject().getAsJsonArray("results");
+        for (int i = 0; i < records.size(); i++) {
+            JsonObject record = records.get(i).getAsJsonObject();
+            if (record.has("connection_id") && BenchmarkPayloads.CONNECTION_ID.equals(record.get("connection_id").getAsString())) {
+                return record.get("state").getAsString();
+            }
+        }
+        return null;
+    }
+    
+    @Benchmark
+    public void streamedProofRecords(Blackhole blackhole) throws IOException {
+        ProofRecordReader.readResults(new StringReader(proofRecords), record -> {
+            blackhole.consume(record);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.ssi.verification;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.bukkit.map.MapCanvas;
+import org.bukkit.map.MapCursorCollection;
+import org.bukkit.map.MapFont;
+import org.bukkit.map.MapView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// The render callback the server makes for every map in view, every tick. firstRender() is the one
+// blit a fresh QrMapRenderer does, rendered() every later call; legacyRender() is the original
+// renderer, which read the whole BufferedImage back pixel by pixel on every call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapRenderBenchmark {
+    
+    private final ArrayMapCanvas canvas = new ArrayMapCanvas();
+    private byte[] pixels;
+    private QrMapRenderer renderedRenderer;
+    private BufferedImage qrImage;
+    
+    @Setup
+    public void setUp() throws WriterException {
+        String url = BenchmarkPayloads.invitationUrl();
+        pixels = QrMapRenderer.encode(url);
+        renderedRenderer = new QrMapRenderer(pixels);
+        renderedRenderer.render(null, canvas, null);
+        qrImage = MatrixToImageWriter.toBufferedImage(
+            new QRCodeWriter().encode(url, BarcodeFormat.QR_CODE, QrMapRenderer.SIZE, QrMapRenderer.SIZE));
+    }
+    
+    @Benchmark
+    public byte[] firstRender() {
+        new QrMapRenderer(pixels).render(null, canvas, null);
+        return canvas.pixels;
+    }
+    
+    @Benchmark
+    public byte[] rendered() {
+        renderedRenderer.render(null, canvas, null);
+        return canvas.pixels;
+    }
+    
+    @SuppressWarnings("deprecation")
+    @Benchmark
+    public byte[] legacyRender() {
+        for (int x = 0; x < QrMapRenderer.SIZE; x++) {
+            for (int y = 0; y < QrMapRenderer.SIZE; y++) {
+                int rgb = qrImage.getRGB(x, y);
+                canvas.setPixel(x, y, rgb == -1 ? (byte) 0 : (byte) 119);
+            }
+        }
+        return canvas.pixels;
+    }
+    
+    // Stands in for the server's canvas: setPixel stores into an array, as CraftMapCanvas does
+    private static final class ArrayMapCanvas implements MapCanvas {
+        
+        private final byte[] pixels = new byte[QrMapRenderer.SIZE * QrMapRenderer.SIZE];
+        
+        @Override
+        public void setPixel(int x, int y, byte color) {
+            if (x < 0 || y < 0 || x >= QrMapRenderer.SIZE || y >= QrMapRenderer.SIZE) return;
+            pixels[y * QrMapRenderer.SIZE + x] = color;
+        }
+        
+        @Override
+        public byte getPixel(int x, int y) {
+            return pixels[y * QrMapRenderer.SIZE + x];
+        }
+        
+        @Override
+        public byte getBasePixel(int x, int y) {
+            return 0;
+        }
+        
+        @Override
+        public MapView getMapView() {
+            return null;
+        }
+        
+        @Override
+        public MapCursorCollection getCursors() {
+            return null;
+        }
+        
+        @Override
+        public void setCursors(MapCursorCollection cursors) {
+        }
+        
+        @Override
+        public void setPixelColor(int x, int y, Color color) {
+        }
+        
+        @Override
+        public Color getPixelColor(int x, int y) {
+            return null;
+        }
+        
+        @Override
+        public Color getBasePixelColor(int x, int y) {
+            return null;
+        }
+        
+        @Override
+        public void drawImage(int x, int y, Image image) {
+        }
+        
+        @Override
+        public void drawText(int x, int y, MapFont font, String text) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Building the /verify web proof request body for one player. template() is what SimpleSSIPlugin
+// sends now; typed() serialises the same message through BackendProtocol every time, and legacyTree()
+// is the original nested JsonObject build.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProofRequestBenchmark {
+    
+    private static final String SESSION_ID = "web_1712000000000_Steve";
+    private static final String PLAYER_NAME = "Steve";
+    
+    private final String playerUUID = new UUID(42, 7).toString();
+    private ProofRequestTemplate template;
+    
+    @Setup
+    public void setUp() {
+        template = ProofRequestTemplate.webProofRequest(ProofRequestTemplate.Definition.DEFAULTS);
+    }
+    
+    @Benchmark
+    public byte[] template() {
+        return template.render(SESSION_ID, PLAYER_NAME, playerUUID);
+    }
+    
+    @Benchmark
+    public byte[] typed() {
+        ProofRequestTemplate.Definition definition = ProofRequestTemplate.Definition.DEFAULTS;
+        return BackendProtocol.toJson(new BackendProtocol.WebProofRequest(
+            "web_proof_request",
+            SESSION_ID,
+            "Minecraft Web Verification",
+            PLAYER_NAME + " requests verification via web wallet (Bifold-compatible)",
+            Instant.now().toString(),
+            new BackendProtocol.Requester(PLAYER_NAME, playerUUID),
+            definition.attributes(),
+            definition.proofRequestData(Long.toString(System.nanoTime())))).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public byte[] legacyTree() {
+        JsonObject request = new JsonObject();
+        request.addProperty("type", "web_proof_request");
+        request.addProperty("verificationSessionId", SESSION_ID);
+        request.addProperty("title", "Minecraft Web Verification");
+        request.addProperty("message", PLAYER_NAME + " requests verification via web wallet (Bifold-compatible)");
+        request.addProperty("timestamp", Instant.now().toString());
+        
+        JsonObject requester = new JsonObject();
+        requester.addProperty("playerName", PLAYER_NAME);
+        requester.addProperty("playerUUID", playerUUID);
+        request.add("requester", requester);
+        
+        String[] attributes = {"name", "email", "department", "issuer_did", "age"};
+        JsonArray requestedAttributes = new JsonArray();
+        for (String attribute : attributes) requestedAttributes.add(attribute);
+        request.add("requestedAttributes", requestedAttributes);
+        
+        JsonObject proofRequestData = new JsonObject();
+        proofRequestData.addProperty("name", "Minecraft Web Verification");
+        proofRequestData.addProperty("version", "1.0");
+        JsonObject attributesByReferent = new JsonObject();
+        for (String attribute : attributes) {
+            JsonObject requested = new JsonObject();
+            requested.addProperty("name", attribute);
+            attributesByReferent.add("attr_" + attribute, requested);
+        }
+        proofRequestData.add("requested_attributes", attributesByReferent);
+        proofRequestData.add("requested_predicates", new JsonObject());
+        request.add("proofRequestData", proofRequestData);
+        
+        return request.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ssi.verification;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// Turning an invitation URL into map pixels. encode() is the whole QrEncodingPipeline job; the
+// matrix and colour conversion steps are measured apart, next to the original BufferedImage route.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class QrEncodingBenchmark {
+    
+    private String invitationUrl;
+    private BitMatrix matrix;
+    
+    @Setup
+    public void setUp() throws WriterException {
+        invitationUrl = BenchmarkPayloads.invitationUrl();
+        matrix = new QRCodeWriter().encode(invitationUrl, BarcodeFormat.QR_CODE, QrMapRenderer.SIZE, QrMapRenderer.SIZE);
+    }
+    
+    @Benchmark
+    public byte[] encode() throws WriterException {
+        return QrMapRenderer.encode(invitationUrl);
+    }
+    
+    @Benchmark
+    public BitMatrix bitMatrix() throws WriterException {
+        return new QRCodeWriter().encode(invitationUrl, BarcodeFormat.QR_CODE, QrMapRenderer.SIZE, QrMapRenderer.SIZE);
+    }
+    
+    @Benchmark
+    public byte[] toMapColours() {
+        return QrMapRenderer.toMapColours(matrix);
+    }
+    
+    @Benchmark
+    public BufferedImage legacyBufferedImage() {
+        return MatrixToImageWriter.toBufferedImage(matrix);
+    }
+}
@@ -0,0 +1,93 @@
+package com.ssi.verification;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// "Is this player verified?" as asked from event handlers. VerifiedPlayerSet is the current store;
+// legacy* is the original ConcurrentHashMap<String, Boolean> keyed by player name. Each call looks
+// up the next of 1024 players, half of whom are verified, so hits and misses are both covered.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VerifiedLookupBenchmark {
+    
+    private static final int PROBES = 1024;
+    
+    @Param({"100", "10000"})
+    public int verifiedPlayers;
+    
+    private VerifiedPlayerSet verified;
+    private Map<String, Boolean> legacyVerified;
+    private UUID[] probeIds;
+    private String[] probeNames;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long expiresAt = System.currentTimeMillis() / 1000 + TimeUnit.DAYS.toSeconds(30);
+        verified = new VerifiedPlayerSet(verifiedPlayers);
+        legacyVerified = new ConcurrentHashMap<>();
+        UUID[] ids = new UUID[verifiedPlayers];
+        for (int i = 0; i < verifiedPlayers; i++) {
+            ids[i] = new UUID(random.nextLong() | 1, random.nextLong());
+            verified.put(ids[i], expiresAt, 1);
+            legacyVerified.put(playerName(i), true);
+        }
+        
+        probeIds = new UUID[PROBES];
+        probeNames = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            if ((i & 1) == 0) {
+                int player = random.nextInt(verifiedPlayers);
+                probeIds[i] = ids[player];
+                probeNames[i] = playerName(player);
+            } else {
+                probeIds[i] = new UUID(random.nextLong() | 1, random.nextLong());
+                probeNames[i] = playerName(verifiedPlayers + i);
+            }
+        }
+    }
+    
+    @Benchmark
+    public boolean contains() {
+        return verified.contains(probeIds[next()]);
+    }
+    
+    @Benchmark
+    public int tier() {
+        UUID id = probeIds[next()];
+        return verified.tier(id.getMostSignificantBits(), id.getLeastSignificantBits(), 1_700_000_000L);
+    }
+    
+    @Benchmark
+    public boolean legacyContains() {
+        return legacyVerified.getOrDefault(probeNames[next()], false);
+    }
+    
+    private int next() {
+        return next = (next + 1) & (PROBES - 1);
+    }
+    
+    private static String playerName(int i) {
+        return "Player" + i;
+    }
+}
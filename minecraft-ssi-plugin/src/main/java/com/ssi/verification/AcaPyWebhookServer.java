@@ -0,0 +1,137 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Embedded receiver for ACA-Py admin webhooks (start the agent with --webhook-url http://host:port/webhooks).
+// ACA-Py posts every record change to <webhook-url>/topic/<topic>/; connection and present-proof
+// updates are handed straight to the session engine so waiting sessions advance without polling.
+public class AcaPyWebhookServer {
+    
+    public static final String TOPIC_CONNECTIONS = "connections";
+    public static final String TOPIC_PRESENT_PROOF_V2 = "present_proof_v2_0";
+    
+    // Once events have been seen recently, polling can safely drop to the slow fallback cadence
+    private static final long RECEIVING_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(10);
+    
+    private final Logger logger;
+    private final VerificationSessionEngine engine;
+    private final String host;
+    private final int port;
+    private final String basePath;
+    private final String apiKey;
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile long lastEventNanos;
+    private volatile boolean receivedAny;
+    
+    public AcaPyWebhookServer(Logger logger, VerificationSessionEngine engine, String host, int port, String basePath, String apiKey) {
+        this.logger = logger;
+        this.engine = engine;
+        this.host = host;
+        this.port = port;
+        this.basePath = basePath.endsWith("/") ? basePath.substring(0, basePath.length() - 1) : basePath;
+        this.apiKey = apiKey == null ? "" : apiKey;
+    }
+    
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext(basePath + "/topic/", this::handle);
+        // Handlers only parse and hand off, one thread is plenty
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSIVerification-webhooks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        logger.info("ACA-Py webhook receiver listening on http://" + host + ":" + port + basePath);
+    }
+    
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    // True when ACA-Py has delivered events recently, i.e. webhooks are actually wired up
+    public boolean isReceiving() {
+        return receivedAny && System.nanoTime() - lastEventNanos < RECEIVING_WINDOW_NANOS;
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!apiKey.isEmpty() && !apiKey.equals(exchange.getRequestHeaders().getFirst("x-api-key"))) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            
+            // Path looks like <base>/topic/<topic>/
+            String topic = exchange.getRequestURI().getPath().substring(basePath.length() + "/topic/".length());
+            if (topic.endsWith("/")) {
+                topic = topic.substring(0, topic.length() - 1);
+            }
+            
+            JsonObject payload;
+            try (InputStream body = exchange.getRequestBody()) {
+                JsonElement parsed = JsonParser.parseReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                payload = parsed.isJsonObject() ? parsed.getAsJsonObject() : null;
+            } catch (Exception e) {
+                logger.warning("Ignoring malformed webhook on topic " + topic + ": " + e.getMessage());
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            
+            // Acknowledge first; ACA-Py retries slow or failed deliveries
+            exchange.sendResponseHeaders(200, -1);
+            
+            if (payload != null) {
+                lastEventNanos = System.nanoTime();
+                receivedAny = true;
+                dispatch(topic, payload);
+            }
+        }
+    }
+    
+    private void dispatch(String topic, JsonObject payload) {
+        switch (topic) {
+            case TOPIC_CONNECTIONS:
+                engine.signal(topic, payload, stringField(payload, "connection_id"));
+                break;
+            case TOPIC_PRESENT_PROOF_V2:
+                engine.signal(topic, payload, stringField(payload, "pres_ex_id"), stringField(payload, "connection_id"));
+                break;
+            default:
+                // Other topics (basicmessages, issue_credential...) are not used by verification
+                break;
+        }
+    }
+    
+    private static String stringField(JsonObject payload, String name) {
+        JsonElement value = payload.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ssi.verification;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Plain-text log: "+<TAB>uuid<TAB>verifiedAt<TAB>tier<TAB>issuerDid<TAB>name" for a verification,
+// "-<TAB>uuid" for a revocation. Startup replays the log; when it has grown well past the live
+// set it is rewritten once so the next startup stays fast. The replayed records stay in memory to
+// answer lookups, which is fine for the small servers this backend is meant for.
+public class AppendOnlyVerifiedPlayerStore implements VerifiedPlayerStore {
+    
+    private static final int COMPACT_MIN_LINES = 1000;
+    
+    private final File file;
+    private final Map<UUID, VerifiedPlayer> records = new LinkedHashMap<>();
+    private FileOutputStream output;
+    private Writer writer;
+    
+    public AppendOnlyVerifiedPlayerStore(File file) {
+        this.file = file;
+    }
+    
+    @Override
+    public void loadAll(Consumer<VerifiedPlayer> sink) throws IOException {
+        records.clear();
+        int lines = 0;
+        
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines++;
+                    apply(line, records);
+                }
+            }
+        }
+        
+        if (lines > COMPACT_MIN_LINES && lines > records.size() * 2) {
+            compact(records.values());
+        }
+        openForAppend();
+        records.values().forEach(sink);
+    }
+    
+    @Override
+    public Optional<VerifiedPlayer> find(UUID uuid) {
+        return Optional.ofNullable(records.get(uuid));
+    }
+    
+    @Override
+    public Optional<VerifiedPlayer> findByName(String name) {
+        VerifiedPlayer latest = null;
+        for (VerifiedPlayer record : records.values()) {
+            if (record.name().equalsIgnoreCase(name) && (latest == null || record.verifiedAt() > latest.verifiedAt())) {
+                latest = record;
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+    
+    private static void apply(String line, Map<UUID, VerifiedPlayer> players) {
+        String[] parts = line.split("\t", -1);
+        try {
+            if (parts.length == 6 && "+".equals(parts[0])) {
+                UUID uuid = UUID.fromString(parts[1]);
+                String issuerDid = parts[4].isEmpty() ? null : parts[4];
+                players.put(uuid, new VerifiedPlayer(uuid, parts[5], Long.parseLong(parts[2]), issuerDid, Integer.parseInt(parts[3])));
+            } else if (parts.length == 2 && "-".equals(parts[0])) {
+                players.remove(UUID.fromString(parts[1]));
+            }
+            // Anything else is a torn write from a crash; skip it
+        } catch (IllegalArgumentException ignored) {
+            // Same: a half-written line must not stop the rest of the log loading
+        }
+    }
+    
+    private void compact(Collection<VerifiedPlayer> players) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp);
+             Writer tempWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (VerifiedPlayer player : players) {
+                tempWriter.write(format(player));
+            }
+            tempWriter.flush();
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void openForAppend() throws IOException {
+        boolean tornTail = false;
+        if (file.length() > 0) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                raf.seek(raf.length() - 1);
+                tornTail = raf.read() != '\n';
+            }
+        }
+        output = new FileOutputStream(file, true);
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (tornTail) {
+            // Terminate a half-written last line so the next record starts cleanly
+            writer.write("\n");
+        }
+    }
+    
+    @Override
+    public void writeBatch(Collection<Change> changes) throws IOException {
+        if (writer == null) {
+            openForAppend();
+        }
+        for (Change change : changes) {
+            if (change.record() == null) {
+                records.remove(change.uuid());
+                writer.write("-\t" + change.uuid() + "\n");
+            } else {
+                records.put(change.uuid(), change.record());
+                writer.write(format(change.record()));
+            }
+        }
+        writer.flush();
+        // One fsync per batch rather than per verification
+        output.getFD().sync();
+    }
+    
+    private static String format(VerifiedPlayer player) {
+        String issuerDid = player.issuerDid() == null ? "" : player.issuerDid();
+        return "+\t" + player.uuid() + "\t" + player.verifiedAt() + "\t" + player.tier() + "\t" + issuerDid + "\t" + player.name() + "\n";
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+    
+    @Override
+    public String describe() {
+        return "append-only log " + file.getName();
+    }
+}
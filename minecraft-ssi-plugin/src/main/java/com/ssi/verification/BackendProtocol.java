@@ -0,0 +1,656 @@
+package com.ssi.verification;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Typed request and response bodies for every backend endpoint the plugins call: the verifier API
+// (:4002), the ACA-Py admin API and the web wallet (:3001). Each type has a hand-written TypeAdapter,
+// registered once on GSON. Responses are decoded in one JsonReader pass straight off the body stream,
+// matching fields by name, so whitespace, field order and fields we don't know about don't matter.
+// Requests are written field by field and null fields are left out.
+public final class BackendProtocol {
+    
+    private static final MediaType JSON = MediaType.get("application/json");
+    
+    // Verifier API
+    public record CreateInvitation(String label, String alias) {
+    }
+    
+    public record InvitationCreated(String invitationUrl, String connectionId) {
+    }
+    
+    public record SendProofRequest(String label, String connectionId, String version) {
+    }
+    
+    public record ProofRequestSent(String presExId) {
+    }
+    
+    public record ValidateProof(String proofRecordId) {
+    }
+    
+    public record ProofValidation(boolean success, String message, String error, String issuerDid) {
+    }
+    
+    public record ConnectionState(String state, String rfc23State) {
+        // ACA-Py reports the legacy state or the RFC 23 state depending on protocol
+        public boolean isActive() {
+            return "active".equals(state) || "completed".equals(rfc23State);
+        }
+    }
+    
+    // verify-presentation answers with the whole exchange record; only the verdict is kept.
+    // ACA-Py sends it as the string "true"/"false"
+    public record PresentationVerification(boolean verified) {
+    }
+    
+    // Web wallet
+    public record Requester(String playerName, String playerUUID) {
+    }
+    
+    public record WebProofRequest(String type, String verificationSessionId, String title, String message,
+                                  String timestamp, Requester requester, List<String> requestedAttributes,
+                                  JsonObject proofRequestData) {
+    }
+    
+    public record WebInvitation(String type, String invitationUrl, String connectionId, String playerName,
+                                String playerUUID) {
+    }
+    
+    public record VerifyPlayer(String playerName) {
+    }
+    
+    // Answer to POST /api/minecraft/verify (verificationId) and POST /api/verify-player (qrUrl, sessionId)
+    public record VerificationStarted(boolean success, String verificationId, String qrUrl, String sessionId) {
+    }
+    
+    public record VerificationStatus(String status, boolean verified, String message) {
+        public boolean isVerified() {
+            return verified || "verified".equals(status);
+        }
+        
+        public boolean isFailed() {
+            return "failed".equals(status);
+        }
+        
+        public boolean isDeclined() {
+            return "declined".equals(status);
+        }
+    }
+    
+    // A decoded reply; body is null when a non-2xx reply carried no readable JSON object
+    public record Decoded<T>(int code, T body) {
+        public boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+    }
+    
+    private static final Gson GSON = new GsonBuilder()
+        .disableHtmlEscaping()
+        .registerTypeAdapter(CreateInvitation.class, new CreateInvitationAdapter())
+        .registerTypeAdapter(InvitationCreated.class, new InvitationCreatedAdapter())
+        .registerTypeAdapter(SendProofRequest.class, new SendProofRequestAdapter())
+        .registerTypeAdapter(ProofRequestSent.class, new ProofRequestSentAdapter())
+        .registerTypeAdapter(ValidateProof.class, new ValidateProofAdapter())
+        .registerTypeAdapter(ProofValidation.class, new ProofValidationAdapter())
+        .registerTypeAdapter(ConnectionState.class, new ConnectionStateAdapter())
+        .registerTypeAdapter(PresentationVerification.class, new PresentationVerificationAdapter())
+        .registerTypeAdapter(Requester.class, new RequesterAdapter())
+        .registerTypeAdapter(WebProofRequest.class, new WebProofRequestAdapter())
+        .registerTypeAdapter(WebInvitation.class, new WebInvitationAdapter())
+        .registerTypeAdapter(VerifyPlayer.class, new VerifyPlayerAdapter())
+        .registerTypeAdapter(VerificationStarted.class, new VerificationStartedAdapter())
+        .registerTypeAdapter(VerificationStatus.class, new VerificationStatusAdapter())
+        .create();
+    
+    private BackendProtocol() {
+    }
+    
+    public static String toJson(Object message) {
+        return GSON.toJson(message);
+    }
+    
+    public static RequestBody body(Object message) {
+        return RequestBody.create(toJson(message), JSON);
+    }
+    
+    // Decodes a whole body as type; malformed JSON fails only for 2xx replies, since error pages
+    // are often not JSON at all
+    public static <T> Decoded<T> decode(int code, Reader body, Class<T> type) throws IOException {
+        TypeAdapter<T> adapter = GSON.getAdapter(type);
+        JsonReader reader = new JsonReader(body);
+        boolean successful = code >= 200 && code < 300;
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                if (successful) throw new JsonParseException("expected a JSON object, got " + reader.peek());
+                return new Decoded<>(code, null);
+            }
+            return new Decoded<>(code, adapter.read(reader));
+        } catch (IOException | IllegalStateException | JsonParseException e) {
+            if (successful) throw new IOException("Malformed " + type.getSimpleName() + " body: " + e.getMessage(), e);
+            return new Decoded<>(code, null);
+        }
+    }
+    
+    public static <T> HttpTransport.BodyReader<Decoded<T>> decoder(Class<T> type) {
+        return (code, body) -> decode(code, body, type);
+    }
+    
+    private static final class CreateInvitationAdapter extends TypeAdapter<CreateInvitation> {
+        @Override
+        public void write(JsonWriter out, CreateInvitation value) throws IOException {
+            out.beginObject();
+            field(out, "label", value.label());
+            field(out, "alias", value.alias());
+            out.endObject();
+        }
+        
+        @Override
+        public CreateInvitation read(JsonReader in) throws IOException {
+            String label = null;
+            String alias = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "label" -> label = string(in);
+                    case "alias" -> alias = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new CreateInvitation(label, alias);
+        }
+    }
+    
+    private static final class InvitationCreatedAdapter extends TypeAdapter<InvitationCreated> {
+        @Override
+        public void write(JsonWriter out, InvitationCreated value) throws IOException {
+            out.beginObject();
+            field(out, "invitation_url", value.invitationUrl());
+            field(out, "connection_id", value.connectionId());
+            out.endObject();
+        }
+        
+        @Override
+        public InvitationCreated read(JsonReader in) throws IOException {
+            String invitationUrl = null;
+            String connectionId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "invitation_url" -> invitationUrl = string(in);
+                    case "connection_id" -> connectionId = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new InvitationCreated(invitationUrl, connectionId);
+        }
+    }
+    
+    private static final class SendProofRequestAdapter extends TypeAdapter<SendProofRequest> {
+        @Override
+        public void write(JsonWriter out, SendProofRequest value) throws IOException {
+            out.beginObject();
+            field(out, "proofRequestlabel", value.label()); // sic, as the verifier API spells it
+            field(out, "connectionId", value.connectionId());
+            field(out, "version", value.version());
+            out.endObject();
+        }
+        
+        @Override
+        public SendProofRequest read(JsonReader in) throws IOException {
+            String label = null;
+            String connectionId = null;
+            String version = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "proofRequestlabel" -> label = string(in);
+                    case "connectionId" -> connectionId = string(in);
+                    case "version" -> version = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new SendProofRequest(label, connectionId, version);
+        }
+    }
+    
+    private static final class ProofRequestSentAdapter extends TypeAdapter<ProofRequestSent> {
+        @Override
+        public void write(JsonWriter out, ProofRequestSent value) throws IOException {
+            out.beginObject();
+            field(out, "pres_ex_id", value.presExId());
+            out.endObject();
+        }
+        
+        @Override
+        public ProofRequestSent read(JsonReader in) throws IOException {
+            String presExId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("pres_ex_id".equals(in.nextName())) {
+                    presExId = string(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ProofRequestSent(presExId);
+        }
+    }
+    
+    private static final class ValidateProofAdapter extends TypeAdapter<ValidateProof> {
+        @Override
+        public void write(JsonWriter out, ValidateProof value) throws IOException {
+            out.beginObject();
+            field(out, "proofRecordId", value.proofRecordId());
+            out.endObject();
+        }
+        
+        @Override
+        public ValidateProof read(JsonReader in) throws IOException {
+            String proofRecordId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("proofRecordId".equals(in.nextName())) {
+                    proofRecordId = string(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ValidateProof(proofRecordId);
+        }
+    }
+    
+    private static final class ProofValidationAdapter extends TypeAdapter<ProofValidation> {
+        @Override
+        public void write(JsonWriter out, ProofValidation value) throws IOException {
+            out.beginObject();
+            out.name("success").value(value.success());
+            field(out, "message", value.message());
+            field(out, "error", value.error());
+            field(out, "issuerDID", value.issuerDid());
+            out.endObject();
+        }
+        
+        @Override
+        public ProofValidation read(JsonReader in) throws IOException {
+            boolean success = false;
+            String message = null;
+            String error = null;
+            String issuerDid = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "success" -> success = bool(in);
+                    case "message" -> message = string(in);
+                    case "error" -> error = string(in);
+                    case "issuerDID" -> issuerDid = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ProofValidation(success, message, error, issuerDid);
+        }
+    }
+    
+    private static final class ConnectionStateAdapter extends TypeAdapter<ConnectionState> {
+        @Override
+        public void write(JsonWriter out, ConnectionState value) throws IOException {
+            out.beginObject();
+            field(out, "state", value.state());
+            field(out, "rfc23_state", value.rfc23State());
+            out.endObject();
+        }
+        
+        @Override
+        public ConnectionState read(JsonReader in) throws IOException {
+            String state = null;
+            String rfc23State = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "state" -> state = string(in);
+                    case "rfc23_state" -> rfc23State = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ConnectionState(state, rfc23State);
+        }
+    }
+    
+    private static final class PresentationVerificationAdapter extends TypeAdapter<PresentationVerification> {
+        @Override
+        public void write(JsonWriter out, PresentationVerification value) throws IOException {
+            out.beginObject();
+            out.name("verified").value(Boolean.toString(value.verified()));
+            out.endObject();
+        }
+        
+        @Override
+        public PresentationVerification read(JsonReader in) throws IOException {
+            boolean verified = false;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("verified".equals(in.nextName())) {
+                    verified = bool(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new PresentationVerification(verified);
+        }
+    }
+    
+    private static final class RequesterAdapter extends TypeAdapter<Requester> {
+        @Override
+        public void write(JsonWriter out, Requester value) throws IOException {
+            out.beginObject();
+            field(out, "playerName", value.playerName());
+            field(out, "playerUUID", value.playerUUID());
+            out.endObject();
+        }
+        
+        @Override
+        public Requester read(JsonReader in) throws IOException {
+            String playerName = null;
+            String playerUUID = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "playerName" -> playerName = string(in);
+                    case "playerUUID" -> playerUUID = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Requester(playerName, playerUUID);
+        }
+    }
+    
+    private static final class WebProofRequestAdapter extends TypeAdapter<WebProofRequest> {
+        private final RequesterAdapter requester = new RequesterAdapter();
+        
+        @Override
+        public void write(JsonWriter out, WebProofRequest value) throws IOException {
+            out.beginObject();
+            field(out, "type", value.type());
+            field(out, "verificationSessionId", value.verificationSessionId());
+            field(out, "title", value.title());
+            field(out, "message", value.message());
+            field(out, "timestamp", value.timestamp());
+            if (value.requester() != null) {
+                out.name("requester");
+                requester.write(out, value.requester());
+            }
+            if (value.requestedAttributes() != null) {
+                out.name("requestedAttributes");
+                strings(out, value.requestedAttributes());
+            }
+            if (value.proofRequestData() != null) {
+                out.name("proofRequestData");
+                GSON.toJson(value.proofRequestData(), out);
+            }
+            out.endObject();
+        }
+        
+        @Override
+        public WebProofRequest read(JsonReader in) throws IOException {
+            String type = null;
+            String verificationSessionId = null;
+            String title = null;
+            String message = null;
+            String timestamp = null;
+            Requester requesterValue = null;
+            List<String> requestedAttributes = null;
+            JsonObject proofRequestData = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> type = string(in);
+                    case "verificationSessionId" -> verificationSessionId = string(in);
+                    case "title" -> title = string(in);
+                    case "message" -> message = string(in);
+                    case "timestamp" -> timestamp = string(in);
+                    case "requester" -> requesterValue = in.peek() == JsonToken.BEGIN_OBJECT ? requester.read(in) : skip(in);
+                    case "requestedAttributes" -> requestedAttributes = strings(in);
+                    case "proofRequestData" -> proofRequestData = in.peek() == JsonToken.BEGIN_OBJECT
+                        ? GSON.fromJson(in, JsonObject.class) : skip(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new WebProofRequest(type, verificationSessionId, title, message, timestamp, requesterValue,
+                requestedAttributes, proofRequestData);
+        }
+    }
+    
+    private static final class WebInvitationAdapter extends TypeAdapter<WebInvitation> {
+        @Override
+        public void write(JsonWriter out, WebInvitation value) throws IOException {
+            out.beginObject();
+            field(out, "type", value.type());
+            field(out, "invitationUrl", value.invitationUrl());
+            field(out, "connectionId", value.connectionId());
+            field(out, "playerName", value.playerName());
+            field(out, "playerUUID", value.playerUUID());
+            out.endObject();
+        }
+        
+        @Override
+        public WebInvitation read(JsonReader in) throws IOException {
+            String type = null;
+            String invitationUrl = null;
+            String connectionId = null;
+            String playerName = null;
+            String playerUUID = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> type = string(in);
+                    case "invitationUrl" -> invitationUrl = string(in);
+                    case "connectionId" -> connectionId = string(in);
+                    case "playerName" -> playerName = string(in);
+                    case "playerUUID" -> playerUUID = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new WebInvitation(type, invitationUrl, connectionId, playerName, playerUUID);
+        }
+    }
+    
+    private static final class VerifyPlayerAdapter extends TypeAdapter<VerifyPlayer> {
+        @Override
+        public void write(JsonWriter out, VerifyPlayer value) throws IOException {
+            out.beginObject();
+            field(out, "playerName", value.playerName());
+            out.endObject();
+        }
+        
+        @Override
+        public VerifyPlayer read(JsonReader in) throws IOException {
+            String playerName = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("playerName".equals(in.nextName())) {
+                    playerName = string(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new VerifyPlayer(playerName);
+        }
+    }
+    
+    private static final class VerificationStartedAdapter extends TypeAdapter<VerificationStarted> {
+        @Override
+        public void write(JsonWriter out, VerificationStarted value) throws IOException {
+            out.beginObject();
+            out.name("success").value(value.success());
+            field(out, "verificationId", value.verificationId());
+            field(out, "qrUrl", value.qrUrl());
+            field(out, "sessionId", value.sessionId());
+            out.endObject();
+        }
+        
+        @Override
+        public VerificationStarted read(JsonReader in) throws IOException {
+            boolean success = false;
+            String verificationId = null;
+            String qrUrl = null;
+            String sessionId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "success" -> success = bool(in);
+                    case "verificationId" -> verificationId = string(in);
+                    case "qrUrl" -> qrUrl = string(in);
+                    case "sessionId" -> sessionId = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new VerificationStarted(success, verificationId, qrUrl, sessionId);
+        }
+    }
+    
+    private static final class VerificationStatusAdapter extends TypeAdapter<VerificationStatus> {
+        @Override
+        public void write(JsonWriter out, VerificationStatus value) throws IOException {
+            out.beginObject();
+            field(out, "status", value.status());
+            out.name("verified").value(value.verified());
+            field(out, "message", value.message());
+            out.endObject();
+        }
+        
+        // The POST replies carry status/verified/message at the top level; the GET routes
+        // (/api/minecraft/verify/<id>, /api/verify-player) wrap the stored session as "session"
+        @Override
+        public VerificationStatus read(JsonReader in) throws IOException {
+            String status = null;
+            boolean verified = false;
+            String message = null;
+            VerificationStatus session = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "status" -> status = string(in);
+                    case "verified" -> verified = bool(in);
+                    case "message" -> message = string(in);
+                    case "session" -> session = readSession(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (session == null) return new VerificationStatus(status, verified, message);
+            return new VerificationStatus(session.status() != null ? session.status() : status,
+                verified || session.verified(), session.message() != null ? session.message() : message);
+        }
+        
+        // A session's own "message" is the request text shown to the player; the outcome and its
+        // reason are in "status" and "verificationResult" (isValid, message)
+        private static VerificationStatus readSession(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) return skip(in);
+            String status = null;
+            boolean verified = false;
+            String message = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "status" -> status = string(in);
+                    case "verified" -> verified = bool(in);
+                    case "verificationResult" -> {
+                        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                            in.skipValue();
+                        } else {
+                            in.beginObject();
+                            while (in.hasNext()) {
+                                switch (in.nextName()) {
+                                    case "isValid" -> verified = bool(in) || verified;
+                                    case "message" -> message = string(in);
+                                    default -> in.skipValue();
+                                }
+                            }
+                            in.endObject();
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new VerificationStatus(status, verified, message);
+        }
+    }
+    
+    private static void field(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+    
+    private static void strings(JsonWriter out, List<String> values) throws IOException {
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+    
+    // Scalars are taken as text; objects, arrays and null read as absent
+    private static String string(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case STRING, NUMBER -> in.nextString();
+            case BOOLEAN -> Boolean.toString(in.nextBoolean());
+            default -> skip(in);
+        };
+    }
+    
+    // true, or "true" as ACA-Py writes some flags
+    private static boolean bool(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case BOOLEAN -> in.nextBoolean();
+            case STRING -> "true".equalsIgnoreCase(in.nextString());
+            default -> {
+                in.skipValue();
+                yield false;
+            }
+        };
+    }
+    
+    private static List<String> strings(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) return skip(in);
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            String value = string(in);
+            if (value != null) values.add(value);
+        }
+        in.endArray();
+        return values;
+    }
+    
+    private static <T> T skip(JsonReader in) throws IOException {
+        in.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ssi.verification;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// A named pool for one kind of plugin work, so blocking calls never land on the JVM-wide common
+// pool that other plugins and parallel streams share. Threads and queue are both bounded; when the
+// queue is full, execute() throws RejectedExecutionException back to the caller (who can tell the
+// player to retry). Idle threads time out.
+public class BoundedExecutor implements Executor {
+    
+    private static final long IDLE_TIMEOUT_SECONDS = 60;
+    
+    private final String name;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    
+    public BoundedExecutor(String name, int threads, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        AtomicInteger counter = new AtomicInteger();
+        RejectedExecutionHandler handler = (task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException(name + " is saturated (" + this.queueCapacity + " queued)");
+        };
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+            IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            handler);
+        executor.allowCoreThreadTimeOut(true);
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        long queuedAt = System.nanoTime();
+        executor.execute(() -> {
+            long started = System.nanoTime();
+            maxQueueWaitNanos.accumulateAndGet(started - queuedAt, Math::max);
+            try {
+                task.run();
+            } finally {
+                totalRunNanos.add(System.nanoTime() - started);
+                completed.increment();
+            }
+        });
+    }
+    
+    public Stats stats() {
+        long done = completed.sum();
+        return new Stats(name,
+            executor.getMaximumPoolSize(),
+            executor.getActiveCount(),
+            executor.getQueue().size(),
+            queueCapacity,
+            done,
+            rejected.sum(),
+            TimeUnit.NANOSECONDS.toMicros(maxQueueWaitNanos.get()),
+            done > 0 ? TimeUnit.NANOSECONDS.toMicros(totalRunNanos.sum() / done) : 0);
+    }
+    
+    // Stops taking new tasks; running and queued tasks get the timeout to drain, then
+    // whatever is still queued is dropped and running tasks are interrupted. A timeout
+    // of 0 drops the queue right away
+    public void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public record Stats(String name, int threads, int active, int queued, int queueCapacity,
+                        long completed, long rejected, long maxQueueWaitMicros, long meanRunMicros) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.ssi.verification;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Failure gate for one backend. CLOSED lets calls through and counts consecutive failures; at
+// failureThreshold it opens and every call fails fast for openMillis. After that it is HALF_OPEN
+// and lets a single probe through: a success closes it again, a failure re-opens it for another
+// full period. What counts as a failure is up to the caller.
+public class CircuitBreaker {
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Consumer<State> onTransition;
+    private final LongAdder rejected = new LongAdder();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probing;
+    
+    public CircuitBreaker(int failureThreshold, long openMillis, Consumer<State> onTransition) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.onTransition = onTransition;
+    }
+    
+    // Every granted call must be followed by onSuccess() or onFailure()
+    public boolean tryAcquire() {
+        State changed = null;
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    rejected.increment();
+                    return false;
+                }
+                state = changed = State.HALF_OPEN;
+                probing = false;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probing) {
+                    rejected.increment();
+                    return false;
+                }
+                probing = true;
+            }
+        }
+        announce(changed);
+        return true;
+    }
+    
+    public void onSuccess() {
+        State changed = null;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            probing = false;
+            if (state != State.CLOSED) {
+                state = changed = State.CLOSED;
+            }
+        }
+        announce(changed);
+    }
+    
+    public void onFailure() {
+        State changed = null;
+        synchronized (this) {
+            probing = false;
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = changed = State.OPEN;
+                openedAtNanos = System.nanoTime();
+            }
+        }
+        announce(changed);
+    }
+    
+    // True while calls are being turned away; does not use up the half-open probe
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.nanoTime() - openedAtNanos < openNanos;
+    }
+    
+    public synchronized State state() {
+        return state;
+    }
+    
+    public long rejected() {
+        return rejected.sum();
+    }
+    
+    private void announce(State changed) {
+        if (changed != null && onTransition != null) {
+            onTransition.accept(changed);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+// The one HTTP stack for every backend the plugin talks to (ACA-Py admin, the verifier API, the web
+// wallet). Each backend (scheme://host:port) gets its own keep-alive connection pool, so a burst
+// against one can't evict the warm connections of another. All of them share one Dispatcher, which
+// bounds concurrency overall and per host (OkHttp counts every localhost port as one host, so the
+// defaults keep both limits equal). send() is non-blocking: the body is read on the
+// dispatcher and the future completes there, so a waiting poll holds no thread. HTTP/2 is
+// negotiated over TLS; cleartext backends listed as h2c speak HTTP/2 with prior knowledge.
+// Code that still needs blocking calls can use this as a Call.Factory and get the same pools.
+// Each backend also has a bulkhead (a cap on its calls in flight) and a circuit breaker that opens
+// after consecutive failures (I/O errors, 5xx, calls slower than slow-call-ms). Either one fails
+// the call at once with BackendUnavailableException instead of letting it wait out the timeout.
+// getShared()/getSharedJson() coalesce concurrent identical GETs into one call (and one parse).
+// exchange() sends and decodes the typed BackendProtocol messages. Given VerificationMetrics, every
+// call that reaches a backend is timed per backend, method and route.
+public class HttpTransport implements Call.Factory {
+    
+    private static final MediaType JSON = MediaType.get("application/json");
+    
+    private final Logger logger;
+    private final OkHttpClient base;
+    private final Dispatcher dispatcher;
+    private final Settings settings;
+    private final VerificationMetrics metrics; // may be null
+    private final Map<String, Backend> backends = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Reply> sharedReads = new SingleFlight<>();
+    private final SingleFlight<String, JsonElement> sharedJsonReads = new SingleFlight<>();
+    
+    public HttpTransport(Settings settings, Logger logger) {
+        this(settings, logger, null);
+    }
+    
+    public HttpTransport(Settings settings, Logger logger, VerificationMetrics metrics) {
+        this.logger = logger;
+        this.settings = settings;
+        this.metrics = metrics;
+        this.dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.maxRequests());
+        dispatcher.setMaxRequestsPerHost(settings.maxRequestsPerHost());
+        this.base = new OkHttpClient.Builder()
+            .connectTimeout(settings.connectTimeoutMillis(), TimeUnit.MILLISECONDS)
+            .readTimeout(settings.readTimeoutMillis(), TimeUnit.MILLISECONDS)
+            .dispatcher(dispatcher)
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .build();
+    }
+    
+    @Override
+    public Call newCall(Request request) {
+        return backendFor(request.url()).client().newCall(request);
+    }
+    
+    public CompletableFuture<Reply> send(Request request) {
+        CompletableFuture<Reply> future = new CompletableFuture<>();
+        newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    String body = response.body() != null ? response.body().string() : null;
+                    future.complete(new Reply(response.code(), body));
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+    
+    // Hands the body to reader as a character stream on the dispatcher, for large answers that are
+    // only partly needed; the reader may stop early and the rest is discarded with the response
+    public <T> CompletableFuture<T> stream(Request request, BodyReader<T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    Reader body = response.body() != null ? response.body().charStream() : Reader.nullReader();
+                    future.complete(reader.read(response.code(), body));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+    
+    // Typed form of stream(): the body is decoded by the BackendProtocol adapter for type
+    public <T> CompletableFuture<BackendProtocol.Decoded<T>> exchange(Request request, Class<T> type) {
+        return stream(request, BackendProtocol.decoder(type));
+    }
+    
+    // A null message sends no body (GET, DELETE); a RequestBody (a rendered template) is sent as is
+    public <T> CompletableFuture<BackendProtocol.Decoded<T>> exchange(String method, String url, Object message, Class<T> type) {
+        RequestBody body = message == null ? null
+            : message instanceof RequestBody encoded ? encoded : BackendProtocol.body(message);
+        return exchange(new Request.Builder().url(url).method(method, body).build(), type);
+    }
+    
+    public CompletableFuture<Reply> get(String url) {
+        return send(new Request.Builder().url(url).build());
+    }
+    
+    // For reads many players make at once (wallet notifications...): callers asking while a GET for
+    // the same URL is in flight share its reply instead of sending their own
+    public CompletableFuture<Reply> getShared(String url) {
+        return sharedReads.run(url, () -> get(url));
+    }
+    
+    // Same, but the body is parsed once for everyone; treat the shared tree as read-only.
+    // Non-2xx replies fail with an IOException
+    public CompletableFuture<JsonElement> getSharedJson(String url) {
+        return sharedJsonReads.run(url, () -> get(url).thenApply(reply -> {
+            if (!reply.isSuccessful() || reply.body() == null) {
+                throw new CompletionException(new IOException("GET " + url + " answered " + reply.code()));
+            }
+            return JsonParser.parseString(reply.body());
+        }));
+    }
+    
+    public CompletableFuture<Reply> postJson(String url, String json) {
+        return send(new Request.Builder().url(url).post(RequestBody.create(json, JSON)).build());
+    }
+    
+    // For callers that pass the method around; a null body sends none (GET, DELETE)
+    public CompletableFuture<Reply> send(String method, String url, String json) {
+        return send(new Request.Builder()
+            .url(url)
+            .header("Content-Type", "application/json")
+            .method(method, json != null ? RequestBody.create(json, JSON) : null)
+            .build());
+    }
+    
+    // False while the backend's circuit is open, so callers can refuse work before starting it
+    public boolean isAvailable(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (parsed == null) return false;
+        Backend backend = backends.get(origin(parsed));
+        return backend == null || !backend.breaker().isOpen();
+    }
+    
+    public Stats stats() {
+        int connections = 0;
+        int idle = 0;
+        for (Backend backend : backends.values()) {
+            connections += backend.client().connectionPool().connectionCount();
+            idle += backend.client().connectionPool().idleConnectionCount();
+        }
+        return new Stats(backends.size(), connections, idle, dispatcher.runningCallsCount(), dispatcher.queuedCallsCount(),
+            sharedReads.calls() + sharedJsonReads.calls(),
+            sharedReads.coalesced() + sharedJsonReads.coalesced());
+    }
+    
+    public List<BackendStats> backendStats() {
+        List<BackendStats> stats = new ArrayList<>();
+        backends.forEach((origin, backend) -> stats.add(new BackendStats(origin,
+            backend.breaker().state(),
+            settings.maxConcurrentPerBackend() - backend.bulkhead().availablePermits(),
+            settings.maxConcurrentPerBackend(),
+            backend.breaker().rejected(),
+            backend.bulkheadRejections().sum())));
+        return stats;
+    }
+    
+    public void shutdown() {
+        dispatcher.cancelAll();
+        dispatcher.executorService().shutdown();
+        for (Backend backend : backends.values()) {
+            backend.client().connectionPool().evictAll();
+        }
+    }
+    
+    private Backend backendFor(HttpUrl url) {
+        return backends.computeIfAbsent(origin(url), key -> {
+            CircuitBreaker breaker = new CircuitBreaker(settings.failureThreshold(), settings.openMillis(),
+                state -> logger.warning("Circuit to " + key + " is now " + state));
+            Semaphore bulkhead = new Semaphore(settings.maxConcurrentPerBackend());
+            LongAdder bulkheadRejections = new LongAdder();
+            OkHttpClient.Builder builder = base.newBuilder()
+                .connectionPool(new ConnectionPool(settings.maxIdlePerBackend(), settings.keepAliveMillis(), TimeUnit.MILLISECONDS))
+                .addInterceptor(chain -> guard(key, breaker, bulkhead, bulkheadRejections, chain));
+            if (settings.h2cBackends().contains(key) || settings.h2cBackends().contains(url.host() + ":" + url.port())) {
+                builder.protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+            }
+            return new Backend(builder.build(), breaker, bulkhead, bulkheadRejections);
+        });
+    }
+    
+    // The bulkhead is taken first, so a call it turns away never holds the half-open probe
+    private Response guard(String origin, CircuitBreaker breaker, Semaphore bulkhead, LongAdder bulkheadRejections,
+                           Interceptor.Chain chain) throws IOException {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            throw new BackendUnavailableException(origin, settings.maxConcurrentPerBackend() + " calls already in flight");
+        }
+        try {
+            if (!breaker.tryAcquire()) {
+                throw new BackendUnavailableException(origin, "circuit open after repeated failures");
+            }
+            long started = System.nanoTime();
+            Response response;
+            try {
+                response = chain.proceed(chain.request());
+            } catch (IOException | RuntimeException e) {
+                breaker.onFailure();
+                record(origin, chain.request(), System.nanoTime() - started, true);
+                throw e;
+            }
+            long elapsedNanos = System.nanoTime() - started;
+            record(origin, chain.request(), elapsedNanos, response.code() >= 500);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            if (response.code() >= 500 || elapsedMillis >= settings.slowCallMillis()) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            return response;
+        } finally {
+            bulkhead.release();
+        }
+    }
+    
+    // Until the response headers arrive; streamed bodies are read after this
+    private void record(String origin, Request request, long nanos, boolean failed) {
+        if (metrics != null) {
+            metrics.recordBackendCall(origin, request.method(), request.url(), nanos, failed);
+        }
+    }
+    
+    private static String origin(HttpUrl url) {
+        return url.scheme() + "://" + url.host() + ":" + url.port();
+    }
+    
+    // Raised (or delivered to send()'s future) while a backend is refusing calls
+    public static class BackendUnavailableException extends IOException {
+        
+        private final String backend;
+        
+        public BackendUnavailableException(String backend, String reason) {
+            super(backend + " unavailable: " + reason);
+            this.backend = backend;
+        }
+        
+        public String backend() {
+            return backend;
+        }
+        
+        // Looks through CompletionException and other wrappers
+        public static boolean isCause(Throwable error) {
+            for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+                if (cause instanceof BackendUnavailableException) return true;
+            }
+            return false;
+        }
+    }
+    
+    private record Backend(OkHttpClient client, CircuitBreaker breaker, Semaphore bulkhead, LongAdder bulkheadRejections) {
+    }
+    
+    public record Settings(long connectTimeoutMillis, long readTimeoutMillis, int maxRequests, int maxRequestsPerHost,
+                           int maxIdlePerBackend, long keepAliveMillis, Set<String> h2cBackends,
+                           int maxConcurrentPerBackend, int failureThreshold, long openMillis, long slowCallMillis) {
+        
+        public static final Settings DEFAULTS = new Settings(10_000, 30_000, 64, 64, 8, 300_000, Set.of(),
+            32, 5, 30_000, 10_000);
+        
+        public static Settings fromConfig(ConfigurationSection section) {
+            if (section == null) return DEFAULTS;
+            return new Settings(
+                section.getLong("connect-timeout-ms", DEFAULTS.connectTimeoutMillis),
+                section.getLong("read-timeout-ms", DEFAULTS.readTimeoutMillis),
+                section.getInt("max-requests", DEFAULTS.maxRequests),
+                section.getInt("max-requests-per-host", DEFAULTS.maxRequestsPerHost),
+                section.getInt("max-idle-connections-per-backend", DEFAULTS.maxIdlePerBackend),
+                section.getLong("keep-alive-ms", DEFAULTS.keepAliveMillis),
+                Set.copyOf(section.getStringList("h2c-backends")),
+                Math.max(1, section.getInt("bulkhead.max-concurrent-per-backend", DEFAULTS.maxConcurrentPerBackend)),
+                section.getInt("circuit-breaker.failure-threshold", DEFAULTS.failureThreshold),
+                TimeUnit.SECONDS.toMillis(section.getLong("circuit-breaker.open-seconds", TimeUnit.MILLISECONDS.toSeconds(DEFAULTS.openMillis))),
+                section.getLong("circuit-breaker.slow-call-ms", DEFAULTS.slowCallMillis));
+        }
+    }
+    
+    public interface BodyReader<T> {
+        T read(int code, Reader body) throws IOException;
+    }
+    
+    public record Reply(int code, String body) {
+        public boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+    }
+    
+    public record Stats(int backends, int connections, int idleConnections, int runningCalls, int queuedCalls,
+                        long sharedReads, long coalescedReads) {
+    }
+    
+    public record BackendStats(String origin, CircuitBreaker.State state, int inFlight, int maxConcurrent,
+                               long breakerRejections, long bulkheadRejections) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.ssi.verification;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+// Keeps a few single-use connection invitations, QR pixels included, ready before anyone asks, so
+// /verify can hand out a QR code in the same tick instead of waiting on create-invitation and the
+// encoder. Taking one kicks off a refill; refills are issued in batches and a failed batch waits for
+// the next maintenance cycle rather than retrying in a tight loop. Invitations are handed out oldest
+// first; ones older than the max age are discarded (the caller deletes the unused connection) and
+// replaced, and so is everything still in the pool when it stops.
+public class InvitationPool {
+    
+    private static final long MAINTENANCE_INTERVAL_MILLIS = 5000;
+    
+    private final Logger logger;
+    private final VerificationSessionEngine engine;
+    private final Supplier<CompletableFuture<PreparedInvitation>> create;
+    private final Function<PreparedInvitation, CompletableFuture<?>> discard;
+    private final int targetSize;
+    private final int batchSize;
+    private final long maxAgeNanos;
+    private final ConcurrentLinkedDeque<PreparedInvitation> ready = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private volatile boolean stopped;
+    private volatile boolean failing;
+    
+    public InvitationPool(Logger logger, VerificationSessionEngine engine,
+                          Supplier<CompletableFuture<PreparedInvitation>> create,
+                          Function<PreparedInvitation, CompletableFuture<?>> discard,
+                          int targetSize, int batchSize, long maxAgeMillis) {
+        this.logger = logger;
+        this.engine = engine;
+        this.create = create;
+        this.discard = discard;
+        this.targetSize = targetSize;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+    }
+    
+    public boolean isEnabled() {
+        return targetSize > 0;
+    }
+    
+    public void start() {
+        if (!isEnabled()) return;
+        maintain();
+    }
+    
+    // Discards every ready invitation and waits up to waitMillis for the deletes, which must reach
+    // the agent before the HTTP client shuts down
+    public void stop(long waitMillis) {
+        stopped = true;
+        List<CompletableFuture<?>> deletes = new ArrayList<>();
+        PreparedInvitation invitation;
+        while ((invitation = ready.pollFirst()) != null) {
+            deletes.add(discard.apply(invitation));
+        }
+        if (deletes.isEmpty()) return;
+        
+        try {
+            CompletableFuture.allOf(deletes.toArray(new CompletableFuture<?>[0])).get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warning("Not every unused invitation could be deleted on shutdown: " + e.getMessage());
+        }
+    }
+    
+    // The oldest unexpired invitation, which nobody else will get, or null when the pool is empty
+    public PreparedInvitation take() {
+        if (!isEnabled()) return null;
+        
+        PreparedInvitation invitation;
+        while ((invitation = ready.pollFirst()) != null) {
+            if (!isStale(invitation, System.nanoTime())) break;
+            expire(invitation);
+        }
+        if (invitation != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        refill();
+        return invitation;
+    }
+    
+    public Stats stats() {
+        return new Stats(ready.size(), inFlight.get(), hits.sum(), misses.sum(), expired.sum());
+    }
+    
+    private void maintain() {
+        if (stopped) return;
+        
+        // Oldest invitations sit at the head, newest refills at the tail
+        long now = System.nanoTime();
+        Iterator<PreparedInvitation> oldestFirst = ready.iterator();
+        while (oldestFirst.hasNext()) {
+            PreparedInvitation invitation = oldestFirst.next();
+            if (!isStale(invitation, now)) break;
+            if (ready.removeFirstOccurrence(invitation)) {
+                expire(invitation);
+            }
+        }
+        
+        failing = false;
+        refill();
+        engine.schedule(this::maintain, MAINTENANCE_INTERVAL_MILLIS);
+    }
+    
+    // Synchronized so two callers can't both see the same gap and overshoot the target
+    private synchronized void refill() {
+        if (stopped || failing) return;
+        
+        int missing = targetSize - ready.size() - inFlight.get();
+        // Top up a whole batch at a time, unless the pool has run dry
+        if (missing <= 0 || (missing < batchSize && !ready.isEmpty())) return;
+        
+        int count = Math.min(missing, batchSize);
+        inFlight.addAndGet(count);
+        List<CompletableFuture<PreparedInvitation>> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(create.get());
+        }
+        
+        for (CompletableFuture<PreparedInvitation> pending : batch) {
+            pending.whenComplete((invitation, error) -> {
+                inFlight.decrementAndGet();
+                if (error != null) {
+                    if (!failing) {
+                        logger.warning("Could not pre-create invitation, retrying in "
+                            + (MAINTENANCE_INTERVAL_MILLIS / 1000) + "s: " + error.getMessage());
+                    }
+                    failing = true;
+                    return;
+                }
+                if (stopped) {
+                    discard.apply(invitation);
+                    return;
+                }
+                ready.offerLast(invitation);
+                // Start the next batch right away if the pool is still a whole batch short
+                refill();
+            });
+        }
+    }
+    
+    private boolean isStale(PreparedInvitation invitation, long now) {
+        return maxAgeNanos > 0 && now - invitation.createdAtNanos() >= maxAgeNanos;
+    }
+    
+    private void expire(PreparedInvitation invitation) {
+        expired.increment();
+        discard.apply(invitation);
+    }
+    
+    public record PreparedInvitation(String connectionId, String invitationUrl, byte[] pixels, long createdAtNanos) {
+    }
+    
+    public record Stats(int ready, int inFlight, long hits, long misses, long expired) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.ssi.verification;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram with HDR-style log-linear buckets over microseconds: values below 64 µs get a
+// bucket each, above that every power of two is split into 32 equal buckets, so any recorded value
+// is off by at most 1/32 (about 3%) from its bucket's bounds, from 1 µs up to weeks. Recording is
+// one bucket index computation and three uncontended atomic adds, safe from any thread; the counts
+// are cumulative since start, which is what Prometheus expects.
+public final class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int LINEAR_EXPONENT = SUB_BUCKET_BITS + 1;
+    private static final int MAX_EXPONENT = 41;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+    
+    public void record(long nanos) {
+        long micros = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        counts.incrementAndGet(indexOf(micros));
+        sumMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+    
+    public void recordSince(long startedNanos) {
+        record(System.nanoTime() - startedNanos);
+    }
+    
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sumMicros.sum(), maxMicros.get());
+    }
+    
+    static int indexOf(long micros) {
+        if (micros < LINEAR_LIMIT) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (exponent - LINEAR_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+    
+    static long lowestValue(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int offset = index - LINEAR_LIMIT;
+        int exponent = offset / SUB_BUCKETS + LINEAR_EXPONENT;
+        return (long) (offset % SUB_BUCKETS + SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+    
+    static long highestValue(int index) {
+        return index + 1 < BUCKETS ? lowestValue(index + 1) - 1 : MAX_VALUE;
+    }
+    
+    // A consistent copy of the counts: count is the sum of the buckets it holds
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumMicros;
+        private final long maxMicros;
+        
+        private Snapshot(long[] counts, long count, long sumMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+        }
+        
+        public long count() {
+            return count;
+        }
+        
+        public long sumMicros() {
+            return sumMicros;
+        }
+        
+        public long maxMicros() {
+            return maxMicros;
+        }
+        
+        // Upper bound of the bucket holding the q-th value (never above the recorded max)
+        public long percentileMicros(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestValue(i), maxMicros);
+            }
+            return maxMicros;
+        }
+        
+        // Values at or below micros; the bucket holding micros is split linearly across its width
+        public long countAtOrBelow(long micros) {
+            long bound = Math.min(MAX_VALUE, micros);
+            int last = indexOf(bound);
+            long below = 0;
+            for (int i = 0; i < last; i++) {
+                below += counts[i];
+            }
+            long lowest = lowestValue(last);
+            long width = highestValue(last) - lowest + 1;
+            return below + counts[last] * (bound - lowest + 1) / width;
+        }
+    }
+}
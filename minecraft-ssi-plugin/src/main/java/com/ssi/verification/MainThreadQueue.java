@@ -0,0 +1,158 @@
+package com.ssi.verification;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// The one hand-off from async work back to the main thread. Any thread can queue a task or a chat
+// message; a single repeating task drains the queue once per tick until it is empty or the tick's
+// budget is spent, and whatever is left waits for the next tick in order. So a burst of completions
+// costs one scheduler task per tick instead of one per message. A message that is still queued for
+// a player is not queued a second time. The queue is an intrusive linked list that producers append
+// to with one atomic swap (multi-producer, single-consumer), so queueing never blocks. Draining is
+// timed as queue work in TickTimings.
+public class MainThreadQueue {
+    
+    private final Plugin plugin;
+    private final Logger logger;
+    private final TickTimings timings;
+    private final long budgetNanos;
+    private final AtomicReference<Node> tail;
+    private Node head; // main thread only
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final Set<PendingMessage> pendingMessages = ConcurrentHashMap.newKeySet();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private long executed;
+    private long carriedOver;
+    private int maxBacklog;
+    private BukkitTask drainTask;
+    
+    public MainThreadQueue(Plugin plugin, Logger logger, TickTimings timings, long budgetMicros) {
+        this.plugin = plugin;
+        this.logger = logger;
+        this.timings = timings;
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, budgetMicros));
+        this.head = new Node(null);
+        this.tail = new AtomicReference<>(head);
+    }
+    
+    public void start() {
+        drainTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 1L, 1L);
+    }
+    
+    public void execute(Runnable task) {
+        Node node = new Node(task);
+        tail.getAndSet(node).next = node;
+        queued.increment();
+        backlog.incrementAndGet();
+    }
+    
+    public void sendMessage(Player player, Component message) {
+        enqueueMessage(player, message);
+    }
+    
+    public void sendMessage(Player player, String message) {
+        enqueueMessage(player, message);
+    }
+    
+    // Identical text already waiting for this player is dropped; ordering of the rest is kept
+    private void enqueueMessage(Player player, Object message) {
+        PendingMessage pending = new PendingMessage(player.getUniqueId(), message);
+        if (!pendingMessages.add(pending)) {
+            coalesced.increment();
+            return;
+        }
+        execute(() -> {
+            pendingMessages.remove(pending);
+            if (!player.isOnline()) return;
+            if (message instanceof Component component) {
+                player.sendMessage(component);
+            } else {
+                player.sendMessage((String) message);
+            }
+        });
+    }
+    
+    // Main thread, once per tick
+    void drain() {
+        if (head.next == null) return;
+        timings.enter(TickTimings.Category.QUEUE);
+        try {
+            drainWithinBudget();
+        } finally {
+            timings.exit();
+        }
+    }
+    
+    private void drainWithinBudget() {
+        long deadline = System.nanoTime() + budgetNanos;
+        maxBacklog = Math.max(maxBacklog, backlog.get());
+        Node next;
+        while ((next = head.next) != null) {
+            Runnable task = next.task;
+            next.task = null;
+            head = next;
+            backlog.decrementAndGet();
+            executed++;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Main-thread task failed", e);
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                if (head.next != null) carriedOver++;
+                return;
+            }
+        }
+    }
+    
+    // Queued work is dropped: at shutdown its players and sessions are going away anyway
+    public void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        int dropped = backlog.getAndSet(0);
+        head = tail.get();
+        head.task = null;
+        pendingMessages.clear();
+        if (dropped > 0) {
+            logger.info("Discarded " + dropped + " queued main-thread tasks on shutdown");
+        }
+    }
+    
+    public Stats stats() {
+        return new Stats(backlog.get(), maxBacklog, queued.sum(), executed, coalesced.sum(), carriedOver,
+            TimeUnit.NANOSECONDS.toMicros(budgetNanos));
+    }
+    
+    private static final class Node {
+        private volatile Node next;
+        private Runnable task;
+        
+        Node(Runnable task) {
+            this.task = task;
+        }
+    }
+    
+    private record PendingMessage(UUID player, Object message) {
+    }
+    
+    // carriedOver counts ticks that ran out of budget with work still queued
+    public record Stats(int backlog, int maxBacklog, long queued, long executed, long coalesced, long carriedOver,
+                        long budgetMicros) {
+    }
+}
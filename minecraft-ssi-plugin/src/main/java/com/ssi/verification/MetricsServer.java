@@ -0,0 +1,76 @@
+package com.ssi.verification;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+// Serves VerificationMetrics in the Prometheus text format for a local scraper
+// (metrics.host/port/path in config.yml). Rendering happens on the scrape, on this server's own
+// thread, so the cost of a scrape never lands on the server or the network pool.
+public class MetricsServer {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private final Logger logger;
+    private final VerificationMetrics metrics;
+    private final String host;
+    private final int port;
+    private final String path;
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public MetricsServer(Logger logger, VerificationMetrics metrics, String host, int port, String path) {
+        this.logger = logger;
+        this.metrics = metrics;
+        this.host = host;
+        this.port = port;
+        this.path = path.startsWith("/") ? path : "/" + path;
+    }
+    
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext(path, this::handle);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSIVerification-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Prometheus metrics at http://" + host + ":" + port + path);
+    }
+    
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.prometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ssi.verification;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Poll cadence for one session stage: start fast, back off exponentially up to a cap, and spread
+// each delay by +/- jitter so players who started in the same tick don't hit the agents in lockstep.
+// The engine counts attempts per stage, so moving to the next stage starts again from the fast end.
+public final class PollingPolicy {
+    
+    private final long initialMillis;
+    private final double multiplier;
+    private final long maxMillis;
+    private final double jitter;
+    
+    public PollingPolicy(long initialMillis, double multiplier, long maxMillis, double jitter) {
+        this.initialMillis = Math.max(50, initialMillis);
+        this.multiplier = Math.max(1.0, multiplier);
+        this.maxMillis = Math.max(this.initialMillis, maxMillis);
+        this.jitter = Math.min(0.9, Math.max(0.0, jitter));
+    }
+    
+    public static PollingPolicy fixed(long intervalMillis, double jitter) {
+        return new PollingPolicy(intervalMillis, 1.0, intervalMillis, jitter);
+    }
+    
+    // Reads polling.<stage> style sections; missing keys keep the given defaults
+    public static PollingPolicy fromConfig(ConfigurationSection section, PollingPolicy defaults) {
+        if (section == null) return defaults;
+        return new PollingPolicy(
+            section.getLong("initial-interval-ms", defaults.initialMillis),
+            section.getDouble("multiplier", defaults.multiplier),
+            section.getLong("max-interval-ms", defaults.maxMillis),
+            section.getDouble("jitter", defaults.jitter));
+    }
+    
+    // Delay before the next poll, given how many polls this stage has already made
+    public long delayMillis(int attempts) {
+        double base = initialMillis * Math.pow(multiplier, Math.max(0, attempts));
+        long capped = (long) Math.min(maxMillis, base);
+        if (jitter == 0.0) return capped;
+        
+        double spread = 1.0 + jitter * (2.0 * ThreadLocalRandom.current().nextDouble() - 1.0);
+        return Math.max(1, (long) (capped * spread));
+    }
+    
+    public long initialMillis() {
+        return initialMillis;
+    }
+    
+    public long maxMillis() {
+        return maxMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return initialMillis + "ms x" + multiplier + " up to " + maxMillis + "ms (jitter " + jitter + ")";
+    }
+}
@@ -0,0 +1,178 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+// One poller for every session that only knows its connection id. Instead of each player pulling
+// the whole /present-proof-2.0/records list, the poller asks ACA-Py for filtered records once per
+// interval, indexes them by connection_id and hands finished ones to the engine like a webhook.
+// Pages are streamed through ProofRecordReader, which keeps only the fields the proof stages read,
+// and reading stops as soon as every waiting connection has its record.
+public class ProofRecordPoller {
+    
+    private static final String RECORDS_PATH = "/present-proof-2.0/records";
+    
+    // Up to this many waiting connections, one connection_id-filtered query each is cheapest
+    private static final int PER_CONNECTION_LIMIT = 8;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 20;
+    private static final String[] FINAL_STATES = {"presentation-received", "abandoned", "request-rejected", "done"};
+    
+    private final Logger logger;
+    private final VerificationSessionEngine engine;
+    private final BiFunction<String, HttpTransport.BodyReader<Integer>, CompletableFuture<Integer>> fetch;
+    private final LongSupplier intervalMillis;
+    private final Map<String, Watch> watched = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    // fetch requests an admin API path plus query and streams the answer through the given reader
+    public ProofRecordPoller(Logger logger, VerificationSessionEngine engine,
+                             BiFunction<String, HttpTransport.BodyReader<Integer>, CompletableFuture<Integer>> fetch,
+                             LongSupplier intervalMillis) {
+        this.logger = logger;
+        this.engine = engine;
+        this.fetch = fetch;
+        this.intervalMillis = intervalMillis;
+    }
+    
+    // Registers (or refreshes) interest in a connection for as long as the session stays on this stage
+    public void watch(String connectionId, VerificationSessionEngine.Session session, SessionStage stage) {
+        watched.put(connectionId, new Watch(session, stage));
+        if (scheduled.compareAndSet(false, true)) {
+            engine.schedule(this::cycle, intervalMillis.getAsLong());
+        }
+    }
+    
+    public int watchedConnections() {
+        return watched.size();
+    }
+    
+    private void cycle() {
+        watched.entrySet().removeIf(entry -> !entry.getValue().isCurrent());
+        if (watched.isEmpty()) {
+            scheduled.set(false);
+            // A watch() racing with the check above must not be left without a cycle
+            if (watched.isEmpty() || !scheduled.compareAndSet(false, true)) return;
+        }
+        
+        // Never overlap two scans; a slow agent just makes this cycle a no-op
+        if (running.compareAndSet(false, true)) {
+            Set<String> connectionIds = Set.copyOf(watched.keySet());
+            CompletableFuture<Map<String, JsonObject>> scan = connectionIds.size() <= PER_CONNECTION_LIMIT
+                ? scanByConnection(connectionIds)
+                : scanByState(connectionIds);
+            
+            scan.whenComplete((index, error) -> {
+                running.set(false);
+                if (error != null) {
+                    logger.warning("Proof record poll failed: " + error.getMessage());
+                    return;
+                }
+                for (Map.Entry<String, JsonObject> entry : index.entrySet()) {
+                    JsonObject record = entry.getValue();
+                    engine.signal(AcaPyWebhookServer.TOPIC_PRESENT_PROOF_V2, record,
+                        stringField(record, "pres_ex_id"), entry.getKey());
+                }
+            });
+        }
+        
+        engine.schedule(this::cycle, intervalMillis.getAsLong());
+    }
+    
+    private CompletableFuture<Map<String, JsonObject>> scanByConnection(Set<String> connectionIds) {
+        // The queries run in parallel, so they share a concurrent index; each stops at its own record
+        Map<String, JsonObject> index = new ConcurrentHashMap<>();
+        List<CompletableFuture<Integer>> queries = new ArrayList<>();
+        for (String connectionId : connectionIds) {
+            queries.add(scanPage("?role=verifier&connection_id=" + encode(connectionId), connectionIds, index,
+                () -> !index.containsKey(connectionId)));
+        }
+        
+        return CompletableFuture.allOf(queries.toArray(new CompletableFuture[0])).thenApply(ignored -> index);
+    }
+    
+    private CompletableFuture<Map<String, JsonObject>> scanByState(Set<String> connectionIds) {
+        Map<String, JsonObject> index = new HashMap<>();
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (String state : FINAL_STATES) {
+            chain = chain.thenCompose(ignored -> scanState(state, 0, 0, connectionIds, index));
+        }
+        return chain.thenApply(ignored -> index);
+    }
+    
+    private CompletableFuture<Void> scanState(String state, int offset, int page,
+                                              Set<String> connectionIds, Map<String, JsonObject> index) {
+        if (index.size() >= connectionIds.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        String query = "?role=verifier&state=" + state + "&limit=" + PAGE_SIZE + "&offset=" + offset;
+        return scanPage(query, connectionIds, index, () -> index.size() < connectionIds.size()).thenCompose(read -> {
+            // Older agents ignore limit/offset and return everything in one go; a page cut short
+            // because everyone was found is the last one too
+            boolean lastPage = read != PAGE_SIZE || page + 1 >= MAX_PAGES;
+            if (lastPage) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return scanState(state, offset + PAGE_SIZE, page + 1, connectionIds, index);
+        });
+    }
+    
+    // Streams one page into index while keepReading holds; completes with how many records were read
+    private CompletableFuture<Integer> scanPage(String query, Set<String> connectionIds, Map<String, JsonObject> index,
+                                                BooleanSupplier keepReading) {
+        return fetch.apply(RECORDS_PATH + query, (code, body) -> {
+            if (code < 200 || code >= 300) return 0;
+            return ProofRecordReader.readResults(body, record -> {
+                indexFinished(record, connectionIds, index);
+                return keepReading.getAsBoolean();
+            });
+        });
+    }
+    
+    private static void indexFinished(JsonObject record, Set<String> connectionIds, Map<String, JsonObject> index) {
+        String connectionId = stringField(record, "connection_id");
+        if (connectionId == null || !connectionIds.contains(connectionId)) return;
+        if (!isFinal(stringField(record, "state"))) return;
+        index.putIfAbsent(connectionId, record);
+    }
+    
+    private static boolean isFinal(String state) {
+        if (state == null) return false;
+        for (String finalState : FINAL_STATES) {
+            if (finalState.equals(state)) return true;
+        }
+        return false;
+    }
+    
+    private static String stringField(JsonObject record, String name) {
+        JsonElement value = record.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+    
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+    
+    private record Watch(VerificationSessionEngine.Session session, SessionStage stage) {
+        boolean isCurrent() {
+            return session.isActive() && session.stage() == stage;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Predicate;
+
+// Streams proof exchange records out of ACA-Py responses without building the whole tree. A record
+// carries the full presentation request and proof, which the plugin never reads, so a JsonReader
+// walks the body and keeps only what the proof stages read: state, connection_id, pres_ex_id,
+// verified (ACA-Py's own presentation check, present once the exchange is done) and the cred_def_ids
+// under by_format.pres.indy.identifiers (in the same nesting). Everything else is skipped token by
+// token; memory per poll is one slim record, however many records the agent returns.
+public final class ProofRecordReader {
+    
+    private static final String[] IDENTIFIERS_PATH = {"pres", "indy", "identifiers"};
+    
+    private ProofRecordReader() {
+    }
+    
+    // A {"results": [...]} list. Each slim record goes to sink; when it returns false the rest of the
+    // body is left unread. Returns how many records were read
+    public static int readResults(Reader body, Predicate<JsonObject> sink) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        int count = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"results".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                count++;
+                if (!sink.test(readRecord(reader))) return count;
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+    
+    // A single record (GET /present-proof-2.0/records/{pres_ex_id})
+    public static JsonObject readRecord(Reader body) throws IOException {
+        return readRecord(new JsonReader(body));
+    }
+    
+    private static JsonObject readRecord(JsonReader reader) throws IOException {
+        JsonObject record = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "state", "connection_id", "pres_ex_id" -> {
+                    if (reader.peek() == JsonToken.STRING) {
+                        record.addProperty(name, reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                // "true"/"false" from ACA-Py; kept as text whichever way it arrives
+                case "verified" -> {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.STRING) {
+                        record.addProperty(name, reader.nextString());
+                    } else if (token == JsonToken.BOOLEAN) {
+                        record.addProperty(name, Boolean.toString(reader.nextBoolean()));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                case "by_format" -> {
+                    JsonArray identifiers = readIdentifiersAt(reader, 0);
+                    if (identifiers != null) {
+                        JsonObject indy = new JsonObject();
+                        indy.add("identifiers", identifiers);
+                        JsonObject pres = new JsonObject();
+                        pres.add("indy", indy);
+                        JsonObject byFormat = new JsonObject();
+                        byFormat.add("pres", pres);
+                        record.add("by_format", byFormat);
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return record;
+    }
+    
+    // Follows IDENTIFIERS_PATH from depth on, skipping every sibling along the way
+    private static JsonArray readIdentifiersAt(JsonReader reader, int depth) throws IOException {
+        if (depth == IDENTIFIERS_PATH.length) {
+            return reader.peek() == JsonToken.BEGIN_ARRAY ? readIdentifiers(reader) : skip(reader);
+        }
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) return skip(reader);
+        
+        JsonArray found = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (IDENTIFIERS_PATH[depth].equals(reader.nextName())) {
+                found = readIdentifiersAt(reader, depth + 1);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return found;
+    }
+    
+    private static JsonArray readIdentifiers(JsonReader reader) throws IOException {
+        JsonArray identifiers = new JsonArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            JsonObject identifier = new JsonObject();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("cred_def_id".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                    identifier.addProperty("cred_def_id", reader.nextString());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            identifiers.add(identifier);
+        }
+        reader.endArray();
+        return identifiers;
+    }
+    
+    private static JsonArray skip(JsonReader reader) throws IOException {
+        reader.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,201 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonObject;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// A proof request body serialised once, at load time, from the verification section of config.yml.
+// The JSON is kept as UTF-8 literal segments with slots between them for the few fields that differ
+// per player (session id, name, UUID, nonce, timestamp). render() escapes those values and copies
+// segments and values into one exactly-sized array; nothing else is built per request.
+public final class ProofRequestTemplate {
+    
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final SecureRandom NONCES = new SecureRandom();
+    
+    public enum Slot {
+        SESSION_ID, PLAYER_NAME, PLAYER_UUID, NONCE, TIMESTAMP;
+        
+        // Stands in for the value inside a JSON string while the template is serialised
+        private final String marker = "{{ssi:" + name() + "}}";
+    }
+    
+    private final byte[][] literals;
+    private final Slot[] slots;
+    private final int literalBytes;
+    
+    private ProofRequestTemplate(byte[][] literals, Slot[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int total = 0;
+        for (byte[] literal : literals) total += literal.length;
+        this.literalBytes = total;
+    }
+    
+    // The /verify web request SimpleSSIPlugin sends, with the indy proof request the wallet shows
+    public static ProofRequestTemplate webProofRequest(Definition definition) {
+        return compile(new BackendProtocol.WebProofRequest(
+            "web_proof_request",
+            Slot.SESSION_ID.marker,
+            "Minecraft Web Verification",
+            Slot.PLAYER_NAME.marker + " requests verification via web wallet (Bifold-compatible)",
+            Slot.TIMESTAMP.marker,
+            new BackendProtocol.Requester(Slot.PLAYER_NAME.marker, Slot.PLAYER_UUID.marker),
+            definition.attributes(),
+            definition.proofRequestData(Slot.NONCE.marker)));
+    }
+    
+    // The shorter request SSIVerificationPlugin sends; the web wallet builds the proof request itself
+    public static ProofRequestTemplate verificationRequest(Definition definition) {
+        return compile(new BackendProtocol.WebProofRequest(
+            "verification", null, null, null,
+            Slot.TIMESTAMP.marker,
+            new BackendProtocol.Requester(Slot.PLAYER_NAME.marker, Slot.PLAYER_UUID.marker),
+            definition.attributes(),
+            null));
+    }
+    
+    // Splits the serialised message at every slot marker
+    static ProofRequestTemplate compile(Object message) {
+        String json = BackendProtocol.toJson(message);
+        List<byte[]> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            Slot next = null;
+            int at = -1;
+            for (Slot slot : Slot.values()) {
+                int found = json.indexOf(slot.marker, from);
+                if (found >= 0 && (at < 0 || found < at)) {
+                    at = found;
+                    next = slot;
+                }
+            }
+            if (next == null) break;
+            literals.add(json.substring(from, at).getBytes(StandardCharsets.UTF_8));
+            slots.add(next);
+            from = at + next.marker.length();
+        }
+        literals.add(json.substring(from).getBytes(StandardCharsets.UTF_8));
+        return new ProofRequestTemplate(literals.toArray(new byte[0][]), slots.toArray(new Slot[0]));
+    }
+    
+    public byte[] render(String sessionId, String playerName, String playerUUID) {
+        byte[][] values = new byte[Slot.values().length][];
+        values[Slot.SESSION_ID.ordinal()] = escape(sessionId);
+        values[Slot.PLAYER_NAME.ordinal()] = escape(playerName);
+        values[Slot.PLAYER_UUID.ordinal()] = escape(playerUUID);
+        values[Slot.NONCE.ordinal()] = escape(new BigInteger(80, NONCES).toString());
+        values[Slot.TIMESTAMP.ordinal()] = escape(Instant.now().toString());
+        
+        int size = literalBytes;
+        for (Slot slot : slots) size += values[slot.ordinal()].length;
+        
+        byte[] body = new byte[size];
+        int at = 0;
+        for (int i = 0; i < slots.length; i++) {
+            System.arraycopy(literals[i], 0, body, at, literals[i].length);
+            at += literals[i].length;
+            byte[] value = values[slots[i].ordinal()];
+            System.arraycopy(value, 0, body, at, value.length);
+            at += value.length;
+        }
+        byte[] last = literals[literals.length - 1];
+        System.arraycopy(last, 0, body, at, last.length);
+        return body;
+    }
+    
+    public RequestBody body(String sessionId, String playerName, String playerUUID) {
+        return RequestBody.create(render(sessionId, playerName, playerUUID), JSON);
+    }
+    
+    // Contents of a JSON string literal (the quotes are part of the template)
+    private static byte[] escape(String value) {
+        if (value == null) return new byte[0];
+        ByteArrayOutputStream out = null;
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                case '\u2028', '\u2029' -> String.format("\\u%04x", (int) c);
+                default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (replacement == null) continue;
+            if (out == null) out = new ByteArrayOutputStream(value.length() + 16);
+            out.writeBytes(value.substring(start, i).getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(replacement.getBytes(StandardCharsets.UTF_8));
+            start = i + 1;
+        }
+        if (out == null) return value.getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(value.substring(start).getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+    
+    // What verification.required-attributes / required-predicates ask the wallet to prove
+    public record Definition(String name, List<String> attributes, List<Predicate> predicates) {
+        
+        public static final Definition DEFAULTS = new Definition("Minecraft Web Verification",
+            List.of("name", "email", "department", "issuer_did", "age"), List.of());
+        
+        public static Definition fromConfig(ConfigurationSection section) {
+            if (section == null) return DEFAULTS;
+            List<String> attributes = section.isList("required-attributes")
+                ? List.copyOf(section.getStringList("required-attributes")) : DEFAULTS.attributes();
+            List<Predicate> predicates = new ArrayList<>();
+            ConfigurationSection configured = section.getConfigurationSection("required-predicates");
+            if (configured != null) {
+                for (String label : configured.getKeys(false)) {
+                    ConfigurationSection predicate = configured.getConfigurationSection(label);
+                    if (predicate == null || predicate.getString("attribute") == null) continue;
+                    predicates.add(new Predicate(label, predicate.getString("attribute"),
+                        predicate.getString("predicate-type", ">="), predicate.getInt("value", 0)));
+                }
+            }
+            return new Definition(section.getString("proof-name", DEFAULTS.name()), attributes, List.copyOf(predicates));
+        }
+        
+        // The indy proof request (name, version, nonce, requested_attributes, requested_predicates)
+        JsonObject proofRequestData(String nonce) {
+            JsonObject proofRequest = new JsonObject();
+            proofRequest.addProperty("name", name);
+            proofRequest.addProperty("version", "1.0");
+            proofRequest.addProperty("nonce", nonce);
+            
+            JsonObject requestedAttributes = new JsonObject();
+            for (String attribute : attributes) {
+                JsonObject requested = new JsonObject();
+                requested.addProperty("name", attribute);
+                requestedAttributes.add("attr_" + attribute, requested);
+            }
+            proofRequest.add("requested_attributes", requestedAttributes);
+            
+            JsonObject requestedPredicates = new JsonObject();
+            for (Predicate predicate : predicates) {
+                JsonObject requested = new JsonObject();
+                requested.addProperty("name", predicate.attribute());
+                requested.addProperty("p_type", predicate.type());
+                requested.addProperty("p_value", predicate.value());
+                requestedPredicates.add(predicate.label(), requested);
+            }
+            proofRequest.add("requested_predicates", requestedPredicates);
+            return proofRequest;
+        }
+    }
+    
+    public record Predicate(String label, String attribute, String type, int value) {
+    }
+}
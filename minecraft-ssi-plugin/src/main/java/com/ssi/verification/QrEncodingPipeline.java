@@ -0,0 +1,73 @@
+package com.ssi.verification;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Turns invitation URLs into map-colour bytes on the plugin's QR executor, so ZXing never runs on
+// the server thread: the main thread only wraps the finished bytes in a QrMapRenderer and attaches
+// the item. The executor's queue is bounded; when a verification storm fills it, new requests fail
+// fast with a RejectedExecutionException instead of piling up. Latency is measured from submit to
+// bytes ready.
+public class QrEncodingPipeline {
+    
+    private final BoundedExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+    
+    public QrEncodingPipeline(BoundedExecutor executor) {
+        this.executor = executor;
+    }
+    
+    public CompletableFuture<byte[]> encode(String data) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    byte[] pixels = QrMapRenderer.encode(data);
+                    recordLatency(System.nanoTime() - submitted);
+                    completed.increment();
+                    future.complete(pixels);
+                } catch (Exception e) {
+                    failed.increment();
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    public Stats stats() {
+        long done = completed.sum();
+        BoundedExecutor.Stats pool = executor.stats();
+        return new Stats(
+            pool.queued(),
+            pool.active(),
+            done,
+            failed.sum(),
+            rejected.sum(),
+            TimeUnit.NANOSECONDS.toMicros(lastLatencyNanos),
+            done > 0 ? TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.sum() / done) : 0,
+            TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get()));
+    }
+    
+    private void recordLatency(long nanos) {
+        lastLatencyNanos = nanos;
+        totalLatencyNanos.add(nanos);
+        maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    public record Stats(int queueDepth, int active, long completed, long failed, long rejected,
+                        long lastLatencyMicros, long meanLatencyMicros, long maxLatencyMicros) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.ssi.verification;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.MapMeta;
+import org.bukkit.map.MapView;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+// Hands out QR map items and takes them back. Every item carries its map ID in a
+// PersistentDataContainer tag and we remember the slot it went into, so removal is a single slot
+// check; the inventory is only scanned if the player moved the item. However the item goes away
+// (wallet connected, timeout, quit, death, drop) its map ID goes back to the QrMapPool, but only
+// once the item is really gone: one that was put in a chest, an item frame or another player's
+// hands would otherwise show the next player's invitation, so its ID is retired instead.
+// Main thread only; all of it is timed as inventory work.
+public class QrMapItems implements Listener {
+    
+    private static final String DISPLAY_NAME = "SSI Verification QR Code";
+    
+    private final QrMapPool pool;
+    private final TickTimings timings;
+    private final NamespacedKey key;
+    private final Map<UUID, Issued> issued = new HashMap<>();
+    
+    public QrMapItems(Plugin plugin, QrMapPool pool, TickTimings timings) {
+        this.pool = pool;
+        this.timings = timings;
+        this.key = new NamespacedKey(plugin, "qr_map");
+    }
+    
+    // Replaces any QR the player already holds; false if their inventory has no free slot
+    public boolean give(Player player, QrMapRenderer renderer) {
+        timings.enter(TickTimings.Category.INVENTORY);
+        try {
+            take(player);
+            
+            PlayerInventory inventory = player.getInventory();
+            int slot = inventory.firstEmpty();
+            if (slot < 0) return false;
+            
+            MapView view = pool.acquire(player.getWorld());
+            view.addRenderer(renderer);
+            
+            ItemStack item = new ItemStack(Material.FILLED_MAP);
+            MapMeta meta = (MapMeta) item.getItemMeta();
+            meta.setMapView(view);
+            meta.setDisplayName(DISPLAY_NAME);
+            meta.getPersistentDataContainer().set(key, PersistentDataType.INTEGER, view.getId());
+            item.setItemMeta(meta);
+            
+            inventory.setItem(slot, item);
+            issued.put(player.getUniqueId(), new Issued(view, slot));
+            return true;
+        } finally {
+            timings.exit();
+        }
+    }
+    
+    // Removes the player's QR item, if any, and recycles its map
+    public void take(Player player) {
+        take(player, false);
+    }
+    
+    // removed: the caller already got rid of the item (e.g. from the death drops)
+    private void take(Player player, boolean removed) {
+        timings.enter(TickTimings.Category.INVENTORY);
+        try {
+            Issued current = issued.remove(player.getUniqueId());
+            if (current == null) return;
+            
+            PlayerInventory inventory = player.getInventory();
+            int mapId = current.view().getId();
+            if (mapIdOf(inventory.getItem(current.slot())) == mapId) {
+                inventory.setItem(current.slot(), null);
+                removed = true;
+            } else {
+                removed |= removeTagged(inventory, id -> id == mapId) > 0;
+                if (mapIdOf(player.getItemOnCursor()) == mapId) {
+                    player.setItemOnCursor(null);
+                    removed = true;
+                }
+            }
+            
+            if (removed) {
+                pool.release(current.view());
+            } else {
+                pool.retire(current.view());
+            }
+        } finally {
+            timings.exit();
+        }
+    }
+    
+    // Called from onDisable so the IDs are free again on the next start
+    public void takeAll(Iterable<? extends Player> players) {
+        for (Player player : players) {
+            take(player);
+        }
+        issued.clear();
+        pool.save();
+    }
+    
+    public int issuedCount() {
+        return issued.size();
+    }
+    
+    public int poolSize() {
+        return pool.size();
+    }
+    
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        take(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onDeath(PlayerDeathEvent event) {
+        timings.enter(TickTimings.Category.INVENTORY);
+        try {
+            Issued current = issued.get(event.getEntity().getUniqueId());
+            int mapId = current != null ? current.view().getId() : -1;
+            boolean dropped = false;
+            for (Iterator<ItemStack> drops = event.getDrops().iterator(); drops.hasNext(); ) {
+                int id = mapIdOf(drops.next());
+                if (id < 0) continue;
+                drops.remove();
+                dropped |= id == mapId;
+            }
+            // With keepInventory the item is still in the inventory; take() handles both cases
+            take(event.getEntity(), dropped);
+        } finally {
+            timings.exit();
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onDrop(PlayerDropItemEvent event) {
+        timings.enter(TickTimings.Category.INVENTORY);
+        try {
+            Item dropped = event.getItemDrop();
+            int mapId = mapIdOf(dropped.getItemStack());
+            if (mapId < 0) return;
+            
+            dropped.remove();
+            Issued current = issued.get(event.getPlayer().getUniqueId());
+            if (current != null && current.view().getId() == mapId) {
+                issued.remove(event.getPlayer().getUniqueId());
+                pool.release(current.view());
+            }
+        } finally {
+            timings.exit();
+        }
+    }
+    
+    // Items issued before a restart or crash point at IDs that may already be reused
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        timings.run(TickTimings.Category.INVENTORY, () -> removeTagged(event.getPlayer().getInventory(), id -> true));
+    }
+    
+    private int mapIdOf(ItemStack item) {
+        if (item == null || item.getType() != Material.FILLED_MAP || !item.hasItemMeta()) return -1;
+        ItemMeta meta = item.getItemMeta();
+        Integer id = meta.getPersistentDataContainer().get(key, PersistentDataType.INTEGER);
+        return id != null ? id : -1;
+    }
+    
+    // getSize() of a player inventory covers storage, armour and off hand; returns how many were removed
+    private int removeTagged(PlayerInventory inventory, MapIdFilter filter) {
+        int removed = 0;
+        for (int i = 0; i < inventory.getSize(); i++) {
+            int id = mapIdOf(inventory.getItem(i));
+            if (id >= 0 && filter.matches(id)) {
+                inventory.setItem(i, null);
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    private interface MapIdFilter {
+        boolean matches(int mapId);
+    }
+    
+    private record Issued(MapView view, int slot) {
+    }
+}
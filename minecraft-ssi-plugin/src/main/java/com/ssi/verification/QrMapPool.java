@@ -0,0 +1,102 @@
+package com.ssi.verification;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.map.MapRenderer;
+import org.bukkit.map.MapView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+// Reusable MapViews for QR codes. Bukkit.createMap allocates a map ID for good (a map_N.dat in
+// the world folder), so the pool only creates one when every ID it already owns is handed out.
+// The owned IDs are saved to the data folder; after a restart no QR item is live, so all of them
+// start out free. An ID whose item could not be taken back is retired: it leaves the pool for good
+// (renderers cleared, so the stray item shows a blank map) and is never handed to another player.
+// Main thread only.
+public class QrMapPool {
+    
+    private final Logger logger;
+    private final File file;
+    private final Set<Integer> owned = new LinkedHashSet<>();
+    private final Deque<Integer> free = new ArrayDeque<>();
+    
+    public QrMapPool(Logger logger, File file) {
+        this.logger = logger;
+        this.file = file;
+    }
+    
+    public void load() {
+        if (!file.exists()) return;
+        owned.addAll(YamlConfiguration.loadConfiguration(file).getIntegerList("map-ids"));
+        free.addAll(owned);
+        logger.info("QR map pool: " + owned.size() + " reusable map IDs");
+    }
+    
+    public MapView acquire(World world) {
+        Integer id;
+        while ((id = free.poll()) != null) {
+            MapView view = Bukkit.getMap(id);
+            if (view != null) {
+                clearRenderers(view);
+                return view;
+            }
+            // The world data behind this ID is gone (e.g. the world was reset); forget it
+            owned.remove(id);
+        }
+        
+        MapView view = Bukkit.createMap(world);
+        clearRenderers(view);
+        owned.add(view.getId());
+        save();
+        return view;
+    }
+    
+    public void release(MapView view) {
+        clearRenderers(view);
+        if (owned.contains(view.getId()) && !free.contains(view.getId())) {
+            free.push(view.getId());
+        }
+    }
+    
+    public void retire(MapView view) {
+        clearRenderers(view);
+        free.remove(view.getId());
+        if (owned.remove(view.getId())) {
+            save();
+            logger.info("QR map " + view.getId() + " was not returned; retired it from the pool");
+        }
+    }
+    
+    public int size() {
+        return owned.size();
+    }
+    
+    public int available() {
+        return free.size();
+    }
+    
+    public void save() {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("map-ids", new ArrayList<>(owned));
+        try {
+            yaml.save(file);
+        } catch (IOException e) {
+            logger.warning("Failed to save QR map pool: " + e.getMessage());
+        }
+    }
+    
+    // getRenderers() hands out a copy, so renderers have to be removed one by one
+    private static void clearRenderers(MapView view) {
+        for (MapRenderer renderer : view.getRenderers()) {
+            view.removeRenderer(renderer);
+        }
+    }
+}
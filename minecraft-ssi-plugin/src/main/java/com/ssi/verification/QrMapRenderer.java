@@ -0,0 +1,76 @@
+package com.ssi.verification;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.bukkit.entity.Player;
+import org.bukkit.map.MapCanvas;
+import org.bukkit.map.MapRenderer;
+import org.bukkit.map.MapView;
+
+// Draws a QR code onto a map. encode() converts it to map colours once, up front, and the pixels
+// are blitted on the first render only. The renderer is non-contextual, so the server keeps a
+// single canvas that every viewer shares; after the first blit the pixels never change, nothing
+// is marked dirty and later render calls return immediately. The blit is timed as map-render work
+// when the renderer is given TickTimings.
+public class QrMapRenderer extends MapRenderer {
+    
+    public static final int SIZE = 128;
+    
+    // Same palette the old per-tick renderer used: light modules transparent, dark modules black
+    private static final byte LIGHT = 0;
+    private static final byte DARK = 119;
+    
+    private final byte[] pixels;
+    private final TickTimings timings; // may be null
+    private boolean rendered;
+    
+    // pixels are SIZE * SIZE map colours, row by row, as produced by encode()
+    public QrMapRenderer(byte[] pixels) {
+        this(pixels, null);
+    }
+    
+    public QrMapRenderer(byte[] pixels, TickTimings timings) {
+        super(false);
+        if (pixels.length != SIZE * SIZE) throw new IllegalArgumentException("Expected " + (SIZE * SIZE) + " pixels");
+        this.pixels = pixels;
+        this.timings = timings;
+    }
+    
+    // Pure computation with no Bukkit calls, so it can run on any thread
+    public static byte[] encode(String data) throws WriterException {
+        return toMapColours(new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, SIZE, SIZE));
+    }
+    
+    static byte[] toMapColours(BitMatrix matrix) {
+        byte[] pixels = new byte[SIZE * SIZE];
+        int width = Math.min(SIZE, matrix.getWidth());
+        int height = Math.min(SIZE, matrix.getHeight());
+        for (int y = 0; y < height; y++) {
+            int row = y * SIZE;
+            for (int x = 0; x < width; x++) {
+                pixels[row + x] = matrix.get(x, y) ? DARK : LIGHT;
+            }
+        }
+        return pixels;
+    }
+    
+    @Override
+    public void render(MapView map, MapCanvas canvas, Player player) {
+        if (rendered) return;
+        
+        if (timings != null) timings.enter(TickTimings.Category.MAP_RENDER);
+        try {
+            for (int y = 0; y < SIZE; y++) {
+                int row = y * SIZE;
+                for (int x = 0; x < SIZE; x++) {
+                    canvas.setPixel(x, y, pixels[row + x]);
+                }
+            }
+            rendered = true;
+        } finally {
+            if (timings != null) timings.exit();
+        }
+    }
+}
@@ -10,24 +10,58 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class SSIVerificationPlugin extends JavaPlugin implements Listener {
     
     private static final String WEB_WALLET_URL = "http://localhost:3001";
     private Map<String, VerificationSession> verificationSessions = new HashMap<>();
-    private Map<String, Boolean> verifiedPlayers = new HashMap<>();
+    private VerifiedPlayerRegistry verifiedPlayers;
+    private HttpTransport http;
+    private BoundedExecutor networkExecutor;
+    private TickTimings timings;
+    private MainThreadQueue mainThread;
+    private VerificationSessionEngine sessionEngine;
+    private PollingPolicy walletPolling;
+    private ProofRequestTemplate verificationRequest;
     
     @Override
     public void onEnable() {
+        try {
+            verifiedPlayers = new VerifiedPlayerRegistry(getLogger(),
+                VerifiedPlayerStore.open(getConfig().getString("storage.type", "sqlite"), getDataFolder(), getLogger()),
+                TimeUnit.DAYS.toMillis(getConfig().getLong("storage.verification-ttl-days", 0)));
+            verifiedPlayers.load();
+        } catch (IOException e) {
+            getLogger().severe("Could not load verified players: " + e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+        
+        http = new HttpTransport(HttpTransport.Settings.fromConfig(getConfig().getConfigurationSection("http")), getLogger());
+        networkExecutor = new BoundedExecutor("SSIVerificationPlugin-net",
+            getConfig().getInt("executors.network.threads", 8),
+            getConfig().getInt("executors.network.queue-capacity", 128));
+        timings = new TickTimings(this, getLogger(), TickTimings.Settings.fromConfig(getConfig().getConfigurationSection("timings")));
+        timings.start();
+        mainThread = new MainThreadQueue(this, getLogger(), timings,
+            (long) (getConfig().getDouble("executors.main-thread.drain-budget-ms", 2.0) * 1000));
+        mainThread.start();
+        walletPolling = PollingPolicy.fromConfig(getConfig().getConfigurationSection("polling.web-verification"),
+            new PollingPolicy(2000, 1.5, 10_000, 0.2));
+        verificationRequest = ProofRequestTemplate.verificationRequest(
+            ProofRequestTemplate.Definition.fromConfig(getConfig().getConfigurationSection("verification")));
+        
+        sessionEngine = new VerificationSessionEngine("SSIVerificationPlugin", getLogger());
+        sessionEngine.start();
+        
         getServer().getPluginManager().registerEvents(this, this);
         getLogger().info("SSI Verification Plugin enabled!");
         getLogger().info("Web wallet should be running on: " + WEB_WALLET_URL);
@@ -38,6 +72,24 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
     
     @Override
     public void onDisable() {
+        if (sessionEngine != null) {
+            sessionEngine.shutdown();
+        }
+        if (mainThread != null) {
+            mainThread.shutdown();
+        }
+        if (timings != null) {
+            timings.stop();
+        }
+        if (verifiedPlayers != null) {
+            verifiedPlayers.close();
+        }
+        if (networkExecutor != null) {
+            networkExecutor.shutdown(2000);
+        }
+        if (http != null) {
+            http.shutdown();
+        }
         getLogger().info("SSI Verification Plugin disabled!");
     }
     
@@ -78,7 +130,7 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
         
         
         // Check if already verified
-        if (verifiedPlayers.getOrDefault(playerName, false)) {
+        if (verifiedPlayers.isVerified(player.getUniqueId())) {
             player.sendMessage(ChatColor.GREEN + "✓ You are already verified!");
             return;
         }
@@ -90,6 +142,12 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
             return;
         }
         
+        // Fail fast while the wallet's circuit is open instead of queueing another doomed call
+        if (!http.isAvailable(WEB_WALLET_URL)) {
+            player.sendMessage(ChatColor.YELLOW + "Verification temporarily unavailable. Try again shortly.");
+            return;
+        }
+        
         player.sendMessage(ChatColor.GOLD + "=== SSI Identity Verification ===");
         
         if (mode.equals("web")) {
@@ -102,20 +160,35 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
         }
         
         // Start verification asynchronously
-        CompletableFuture.runAsync(() -> {
-            try {
-                startVerificationProcess(player, mode);
-            } catch (Exception e) {
-                getLogger().severe("Verification failed for " + playerName + ": " + e.getMessage());
-                player.sendMessage(ChatColor.RED + "Verification system unavailable. Try again later.");
-            }
-        });
+        try {
+            networkExecutor.execute(() -> {
+                try {
+                    startVerificationProcess(player, mode);
+                } catch (Exception e) {
+                    getLogger().severe("Verification failed for " + playerName + ": " + e.getMessage());
+                    mainThread.sendMessage(player, ChatColor.RED + "Verification system unavailable. Try again later.");
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            player.sendMessage(ChatColor.YELLOW + "Verification is busy right now, try again in a moment.");
+        }
     }
     
     private void handleSSIVerifyCommand(Player sender, String targetPlayerName) {
-        boolean isVerified = verifiedPlayers.getOrDefault(targetPlayerName, false);
         sender.sendMessage(ChatColor.GOLD + "=== Verification Status ===");
         sender.sendMessage(ChatColor.WHITE + "Player: " + ChatColor.YELLOW + targetPlayerName);
+        
+        // Online players come straight from memory; offline ones need a store lookup
+        Player target = Bukkit.getPlayerExact(targetPlayerName);
+        if (target != null) {
+            sendStatus(sender, verifiedPlayers.isVerified(target.getUniqueId()));
+            return;
+        }
+        verifiedPlayers.lookupByName(targetPlayerName).whenComplete((found, error) ->
+            mainThread.execute(() -> sendStatus(sender, error == null && found.isPresent())));
+    }
+    
+    private void sendStatus(Player sender, boolean isVerified) {
         sender.sendMessage(ChatColor.WHITE + "Status: " + 
             (isVerified ? ChatColor.GREEN + "✓ VERIFIED" : ChatColor.RED + "✗ NOT VERIFIED"));
     }
@@ -125,25 +198,12 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
         String playerUUID = player.getUniqueId().toString();
         
         if (mode.equals("web")) {
-            // Use new web wallet API
-            String requestBody = String.format("""
-                {
-                  "type": "verification",
-                  "requester": {
-                    "playerUUID": "%s",
-                    "playerName": "%s"
-                  },
-                  "requestedAttributes": ["name", "email", "department", "issuer_did", "age"],
-                  "timestamp": "%s"
-                }
-                """, playerUUID, playerName, java.time.Instant.now().toString());
-            
-            // Make request to web wallet
-            String response = makeHttpRequest("POST", WEB_WALLET_URL + "/api/minecraft/verify", requestBody);
+            // Use new web wallet API; the body is compiled from config.yml at startup
+            BackendProtocol.VerificationStarted response = makeHttpRequest("POST", WEB_WALLET_URL + "/api/minecraft/verify",
+                verificationRequest.body(null, playerName, playerUUID), BackendProtocol.VerificationStarted.class);
             
-            // Parse response for web wallet
-            if (response.contains("\"success\":true")) {
-                String verificationId = extractJsonValue(response, "verificationId");
+            if (response.success()) {
+                String verificationId = response.verificationId();
                 
                 if (verificationId != null) {
                     // Create session for web wallet
@@ -156,38 +216,32 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
                     verificationSessions.put(playerName, session);
                     
                     // Send success message
-                    Bukkit.getScheduler().runTask(this, () -> {
-                        player.sendMessage(ChatColor.GREEN + "✅ Verification request sent to web wallet!");
-                        player.sendMessage(ChatColor.GRAY + "→ Check your browser at localhost:3001");
-                        player.sendMessage(ChatColor.GRAY + "→ Look for the proof request notification");
-                        player.sendMessage(ChatColor.GRAY + "→ Click 'Share Info' to verify your identity");
-                    });
+                    mainThread.sendMessage(player, ChatColor.GREEN + "✅ Verification request sent to web wallet!");
+                    mainThread.sendMessage(player, ChatColor.GRAY + "→ Check your browser at localhost:3001");
+                    mainThread.sendMessage(player, ChatColor.GRAY + "→ Look for the proof request notification");
+                    mainThread.sendMessage(player, ChatColor.GRAY + "→ Click 'Share Info' to verify your identity");
                     
                     // Start monitoring verification status
                     getLogger().info("MONITOR: Starting monitoring for session " + verificationId + " for player " + playerName);
                     startWebVerificationMonitoring(player, session);
                 } else {
-                    Bukkit.getScheduler().runTask(this, () -> {
-                        player.sendMessage(ChatColor.RED + "Failed to create verification session");
-                    });
+                    mainThread.sendMessage(player, ChatColor.RED + "Failed to create verification session");
                 }
             } else {
                 final String errorMessage = "Web wallet verification failed to start";
-                Bukkit.getScheduler().runTask(this, () -> {
-                    player.sendMessage(ChatColor.RED + "✗ " + errorMessage);
-                    player.sendMessage(ChatColor.GRAY + "→ Make sure web wallet is running at localhost:3001");
-                });
+                mainThread.sendMessage(player, ChatColor.RED + "✗ " + errorMessage);
+                mainThread.sendMessage(player, ChatColor.GRAY + "→ Make sure web wallet is running at localhost:3001");
             }
             return; // Exit after web mode processing
             
         } else {
             // Mobile mode - use old QR code system (keep existing implementation)
-            String requestBody = String.format("{\"playerName\":\"%s\"}", playerName);
-            String response = makeHttpRequest("POST", WEB_WALLET_URL + "/api/verify-player", requestBody);
+            BackendProtocol.VerificationStarted response = makeHttpRequest("POST", WEB_WALLET_URL + "/api/verify-player",
+                new BackendProtocol.VerifyPlayer(playerName), BackendProtocol.VerificationStarted.class);
             
-            if (response.contains("\"success\":true")) {
-                String qrUrl = extractJsonValue(response, "qrUrl");
-                String sessionId = extractJsonValue(response, "sessionId");
+            if (response.success()) {
+                String qrUrl = response.qrUrl();
+                String sessionId = response.sessionId();
                 
                 if (qrUrl != null && sessionId != null) {
                     VerificationSession session = new VerificationSession();
@@ -199,179 +253,170 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
                     
                     verificationSessions.put(playerName, session);
                     
-                    Bukkit.getScheduler().runTask(this, () -> {
-                        player.sendMessage(ChatColor.GREEN + "✓ QR code generated!");
-                        player.sendMessage(ChatColor.AQUA + "Scan this QR with your mobile SSI wallet:");
-                        player.sendMessage(ChatColor.BLUE + "" + ChatColor.BOLD + qrUrl);
-                    });
+                    mainThread.sendMessage(player, ChatColor.GREEN + "✓ QR code generated!");
+                    mainThread.sendMessage(player, ChatColor.AQUA + "Scan this QR with your mobile SSI wallet:");
+                    mainThread.sendMessage(player, ChatColor.BLUE + "" + ChatColor.BOLD + qrUrl);
                     
                     startMobileVerificationMonitoring(player, session);
                 } else {
-                    Bukkit.getScheduler().runTask(this, () -> {
-                        player.sendMessage(ChatColor.RED + "Failed to generate QR code for mobile mode");
-                    });
+                    mainThread.sendMessage(player, ChatColor.RED + "Failed to generate QR code for mobile mode");
                 }
             } else {
-                Bukkit.getScheduler().runTask(this, () -> {
-                    player.sendMessage(ChatColor.RED + "Mobile wallet verification not available");
-                });
+                mainThread.sendMessage(player, ChatColor.RED + "Mobile wallet verification not available");
             }
         }
     }
     
     private void startWebVerificationMonitoring(Player player, VerificationSession session) {
-        // Check verification status every 3 seconds
-        final int[] taskId = new int[1];
+        sessionEngine.start(player.getUniqueId().toString(), player, new WebWalletStage(session));
+    }
+    
+    private void startMobileVerificationMonitoring(Player player, VerificationSession session) {
+        // Similar to web but for mobile QR code verification
+        sessionEngine.start(player.getUniqueId().toString(), player, new MobileWalletStage(session));
+    }
+    
+    private final class WebWalletStage implements SessionStage {
+        private final VerificationSession session;
+        
+        WebWalletStage(VerificationSession session) {
+            this.session = session;
+        }
         
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            private final int maxAttempts = 100; // 5 minutes
+        @Override
+        public String name() {
+            return "web-wallet";
+        }
+        
+        @Override
+        public PollingPolicy pollingPolicy() {
+            return walletPolling;
+        }
+        
+        @Override
+        public long timeoutMillis() {
+            return 300_000; // 5 minutes
+        }
+        
+        @Override
+        public CompletableFuture<StageResult> poll(VerificationSessionEngine.Session engineSession) {
+            Player player = engineSession.player();
             
-            @Override
-            public void run() {
-                attempts++;
+            // Check web wallet verification status
+            return makeHttpRequestAsync("GET", WEB_WALLET_URL + "/api/minecraft/verify/" + session.sessionId, null,
+                    BackendProtocol.VerificationStatus.class).thenApply(response -> {
+                getLogger().info("MONITOR: Checking session " + session.sessionId + " - attempt " + engineSession.attempts());
+                getLogger().info("MONITOR: Response: " + response);
                 
-                try {
-                    // Check web wallet verification status
-                    String response = makeHttpRequest("GET", WEB_WALLET_URL + "/api/minecraft/verify/" + session.sessionId, null);
-                    getLogger().info("MONITOR: Checking session " + session.sessionId + " - attempt " + attempts + "/" + maxAttempts);
-                    getLogger().info("MONITOR: Response: " + (response.length() > 200 ? response.substring(0, 200) + "..." : response));
+                if (response.isVerified()) {
+                    // Verification successful!
+                    verifiedPlayers.markVerified(player.getUniqueId(), player.getName(), null, VerifiedPlayer.TIER_WALLET);
+                    verificationSessions.remove(session.playerName);
                     
-                    if (response.contains("\"status\":\"verified\"") || response.contains("\"verified\":true")) {
-                        // Verification successful!
-                        verifiedPlayers.put(session.playerName, true);
-                        verificationSessions.remove(session.playerName);
-                        
-                        Bukkit.getScheduler().runTask(SSIVerificationPlugin.this, () -> {
-                            player.sendMessage(ChatColor.GREEN + "🎉 Web wallet verification completed successfully!");
-                            player.sendMessage(ChatColor.YELLOW + "📜 Your credentials have been verified!");
-                            player.sendMessage(ChatColor.GRAY + "→ You now have verified player benefits");
-                            applyVerifiedBenefits(player);
-                            Bukkit.broadcastMessage(ChatColor.GOLD + "🌐 " + player.getName() + 
-                                ChatColor.GREEN + " has been verified with web wallet SSI credentials!");
-                        });
-                        
-                        // Cancel the monitoring task
-                        Bukkit.getScheduler().cancelTask(taskId[0]);
-                        return; // Stop monitoring
-                    } else if (response.contains("\"status\":\"failed\"")) {
-                        // Verification failed (not declined) - show specific reason
-                        verificationSessions.remove(session.playerName);
-                        
-                        // Extract failure reason from response
-                        String failureReason = "Verification failed";
-                        try {
-                            // Try to extract the detailed message
-                            if (response.contains("\"message\"")) {
-                                String messageStart = "\"message\":\"";
-                                int startIndex = response.indexOf(messageStart);
-                                if (startIndex != -1) {
-                                    startIndex += messageStart.length();
-                                    int endIndex = response.indexOf("\"", startIndex);
-                                    if (endIndex != -1) {
-                                        failureReason = response.substring(startIndex, endIndex);
-                                        // Clean up JSON escape characters
-                                        failureReason = failureReason.replace("\\\"", "\"").replace("\\n", " ");
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            getLogger().warning("Failed to parse failure reason: " + e.getMessage());
-                        }
-                        
-                        final String finalReason = failureReason;
-                        Bukkit.getScheduler().runTask(SSIVerificationPlugin.this, () -> {
-                            player.sendMessage(ChatColor.RED + "❌ " + finalReason);
-                            player.sendMessage(ChatColor.GRAY + "→ You can try /verify web again");
-                            player.sendMessage(ChatColor.GRAY + "→ Or use /verify for mobile wallet");
-                        });
-                        
-                        // Cancel the monitoring task
-                        Bukkit.getScheduler().cancelTask(taskId[0]);
-                        return; // Stop monitoring
-                    } else if (response.contains("\"status\":\"declined\"")) {
-                        // User declined - just stop monitoring silently (no notification needed)
-                        verificationSessions.remove(session.playerName);
-                        // Cancel the monitoring task
-                        Bukkit.getScheduler().cancelTask(taskId[0]);
-                        return; // Stop monitoring silently
-                    }
+                    mainThread.execute(() -> {
+                        player.sendMessage(ChatColor.GREEN + "🎉 Web wallet verification completed successfully!");
+                        player.sendMessage(ChatColor.YELLOW + "📜 Your credentials have been verified!");
+                        player.sendMessage(ChatColor.GRAY + "→ You now have verified player benefits");
+                        applyVerifiedBenefits(player);
+                        Bukkit.broadcastMessage(ChatColor.GOLD + "🌐 " + player.getName() + 
+                            ChatColor.GREEN + " has been verified with web wallet SSI credentials!");
+                    });
+                    return StageResult.complete();
+                } else if (response.isFailed()) {
+                    // Verification failed (not declined) - show specific reason
+                    verificationSessions.remove(session.playerName);
                     
-                } catch (Exception e) {
-                    getLogger().warning("Failed to check web verification status: " + e.getMessage());
-                }
-                
-                // Stop monitoring after max attempts
-                if (attempts >= maxAttempts) {
+                    final String finalReason = response.message() != null ? response.message().replace('\n', ' ') : "Verification failed";
+                    mainThread.sendMessage(player, ChatColor.RED + "❌ " + finalReason);
+                    mainThread.sendMessage(player, ChatColor.GRAY + "→ You can try /verify web again");
+                    mainThread.sendMessage(player, ChatColor.GRAY + "→ Or use /verify for mobile wallet");
+                    return StageResult.complete();
+                } else if (response.isDeclined()) {
+                    // User declined - just stop monitoring silently (no notification needed)
                     verificationSessions.remove(session.playerName);
-                    Bukkit.getScheduler().runTask(SSIVerificationPlugin.this, () -> {
-                        player.sendMessage(ChatColor.RED + "⏰ Web wallet verification timeout (5 minutes)");
-                        player.sendMessage(ChatColor.GRAY + "→ Try /verify web again");
-                        player.sendMessage(ChatColor.GRAY + "→ Or use /verify for mobile wallet");
-                    });
-                    // Cancel the monitoring task
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
+                    return StageResult.complete();
                 }
-            }
-        }, 60L, 60L).getTaskId(); // Start after 3 seconds, repeat every 3 seconds
+                return StageResult.pending();
+            }).exceptionally(e -> {
+                getLogger().warning("Failed to check web verification status: " + e.getMessage());
+                return StageResult.pending();
+            });
+        }
+        
+        @Override
+        public void onTimeout(VerificationSessionEngine.Session engineSession) {
+            Player player = engineSession.player();
+            verificationSessions.remove(session.playerName);
+            mainThread.sendMessage(player, ChatColor.RED + "⏰ Web wallet verification timeout (5 minutes)");
+            mainThread.sendMessage(player, ChatColor.GRAY + "→ Try /verify web again");
+            mainThread.sendMessage(player, ChatColor.GRAY + "→ Or use /verify for mobile wallet");
+        }
     }
     
-    private void startMobileVerificationMonitoring(Player player, VerificationSession session) {
-        // Similar to web but for mobile QR code verification
-        final int[] taskId = new int[1];
+    private final class MobileWalletStage implements SessionStage {
+        private final VerificationSession session;
         
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            private final int maxAttempts = 100;
+        MobileWalletStage(VerificationSession session) {
+            this.session = session;
+        }
+        
+        @Override
+        public String name() {
+            return "mobile-wallet";
+        }
+        
+        @Override
+        public PollingPolicy pollingPolicy() {
+            return walletPolling;
+        }
+        
+        @Override
+        public long timeoutMillis() {
+            return 300_000; // 5 minutes
+        }
+        
+        @Override
+        public CompletableFuture<StageResult> poll(VerificationSessionEngine.Session engineSession) {
+            Player player = engineSession.player();
             
-            @Override
-            public void run() {
-                attempts++;
-                
-                try {
-                    String response = makeHttpRequest("GET", WEB_WALLET_URL + "/api/verify-player?playerName=" + session.playerName, null);
-                    
-                    if (response.contains("\"status\":\"verified\"") || response.contains("\"verified\":true")) {
-                        verifiedPlayers.put(session.playerName, true);
-                        verificationSessions.remove(session.playerName);
-                        
-                        Bukkit.getScheduler().runTask(SSIVerificationPlugin.this, () -> {
-                            player.sendMessage(ChatColor.GREEN + "🎉 Mobile wallet verification completed successfully!");
-                            player.sendMessage(ChatColor.YELLOW + "📱 Your mobile credentials have been verified!");
-                            player.sendMessage(ChatColor.GRAY + "→ You now have verified player benefits");
-                            applyVerifiedBenefits(player);
-                            Bukkit.broadcastMessage(ChatColor.GOLD + "📱 " + player.getName() + 
-                                ChatColor.GREEN + " has been verified with mobile SSI wallet!");
-                        });
-                        
-                        // Cancel the monitoring task
-                        Bukkit.getScheduler().cancelTask(taskId[0]);
-                        return;
-                    }
-                    
-                } catch (Exception e) {
-                    getLogger().warning("Failed to check mobile verification status: " + e.getMessage());
-                }
-                
-                if (attempts >= maxAttempts) {
+            return makeHttpRequestAsync("GET", WEB_WALLET_URL + "/api/verify-player?playerName=" + session.playerName, null,
+                    BackendProtocol.VerificationStatus.class).thenApply(response -> {
+                if (response.isVerified()) {
+                    verifiedPlayers.markVerified(player.getUniqueId(), player.getName(), null, VerifiedPlayer.TIER_WALLET);
                     verificationSessions.remove(session.playerName);
-                    Bukkit.getScheduler().runTask(SSIVerificationPlugin.this, () -> {
-                        player.sendMessage(ChatColor.RED + "⏰ Mobile wallet verification timeout (5 minutes)");
-                        player.sendMessage(ChatColor.GRAY + "→ Try /verify again for mobile");
-                        player.sendMessage(ChatColor.GRAY + "→ Or use /verify web for web wallet");
+                    
+                    mainThread.execute(() -> {
+                        player.sendMessage(ChatColor.GREEN + "🎉 Mobile wallet verification completed successfully!");
+                        player.sendMessage(ChatColor.YELLOW + "📱 Your mobile credentials have been verified!");
+                        player.sendMessage(ChatColor.GRAY + "→ You now have verified player benefits");
+                        applyVerifiedBenefits(player);
+                        Bukkit.broadcastMessage(ChatColor.GOLD + "📱 " + player.getName() + 
+                            ChatColor.GREEN + " has been verified with mobile SSI wallet!");
                     });
-                    // Cancel the monitoring task
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
+                    return StageResult.complete();
                 }
-            }
-        }, 60L, 60L).getTaskId();
+                return StageResult.pending();
+            }).exceptionally(e -> {
+                getLogger().warning("Failed to check mobile verification status: " + e.getMessage());
+                return StageResult.pending();
+            });
+        }
+        
+        @Override
+        public void onTimeout(VerificationSessionEngine.Session engineSession) {
+            Player player = engineSession.player();
+            verificationSessions.remove(session.playerName);
+            mainThread.sendMessage(player, ChatColor.RED + "⏰ Mobile wallet verification timeout (5 minutes)");
+            mainThread.sendMessage(player, ChatColor.GRAY + "→ Try /verify again for mobile");
+            mainThread.sendMessage(player, ChatColor.GRAY + "→ Or use /verify web for web wallet");
+        }
     }
     
     
     private void applyVerifiedBenefits(Player player) {
         // Give glowing effect
-        Bukkit.dispatchCommand(Bukkit.getConsoleSender(), 
-            "effect give " + player.getName() + " minecraft:glowing 999999 0 true");
+        timings.run(TickTimings.Category.EFFECTS, () -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(),
+            "effect give " + player.getName() + " minecraft:glowing 999999 0 true"));
         
         player.sendMessage(ChatColor.GREEN + "✓ You now have verified player benefits!");
     }
@@ -381,7 +426,7 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
         Player player = event.getPlayer();
         
         // Check if player is verified
-        if (verifiedPlayers.getOrDefault(player.getName(), false)) {
+        if (verifiedPlayers.isVerified(player.getUniqueId())) {
             player.sendMessage(ChatColor.GREEN + "Welcome back! You are verified.");
             applyVerifiedBenefits(player);
         } else {
@@ -393,62 +438,34 @@ public class SSIVerificationPlugin extends JavaPlugin implements Listener {
     }
     
     private void checkIntegrationServer() {
-        CompletableFuture.runAsync(() -> {
-            try {
-                makeHttpRequest("GET", WEB_WALLET_URL + "/api/minecraft/verify", null);
+        http.get(WEB_WALLET_URL + "/api/minecraft/verify").whenComplete((reply, error) -> {
+            if (error == null && reply.isSuccessful()) {
                 getLogger().info("✓ Web wallet is running at " + WEB_WALLET_URL);
-            } catch (Exception e) {
-                getLogger().warning("⚠ Web wallet not accessible: " + e.getMessage());
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                getLogger().warning("⚠ Web wallet not accessible: " + (cause != null ? cause.getMessage() : "HTTP " + reply.code()));
                 getLogger().warning("  Please run: cd vr-web-wallet && npm run dev");
             }
         });
     }
     
-    private String makeHttpRequest(String method, String urlString, String requestBody) throws Exception {
-        URL url = new URL(urlString);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod(method);
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(10000);
-        
-        if (requestBody != null) {
-            connection.setDoOutput(true);
-            try (OutputStream os = connection.getOutputStream()) {
-                os.write(requestBody.getBytes());
-            }
-        }
-        
-        int responseCode = connection.getResponseCode();
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                responseCode >= 200 && responseCode < 300 ? 
-                connection.getInputStream() : connection.getErrorStream()))) {
-            
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            
-            if (responseCode >= 200 && responseCode < 300) {
-                return response.toString();
-            } else {
-                throw new Exception("HTTP " + responseCode + ": " + response.toString());
-            }
+    // Blocking form for the request/response flows that already run off the main thread
+    private <T> T makeHttpRequest(String method, String urlString, Object message, Class<T> type) throws Exception {
+        try {
+            return makeHttpRequestAsync(method, urlString, message, type).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
         }
     }
     
-    private String extractJsonValue(String json, String key) {
-        String searchKey = "\"" + key + "\":\"";
-        int startIndex = json.indexOf(searchKey);
-        if (startIndex == -1) return null;
-        
-        startIndex += searchKey.length();
-        int endIndex = json.indexOf("\"", startIndex);
-        if (endIndex == -1) return null;
-        
-        return json.substring(startIndex, endIndex);
+    // Non-blocking variant used by the session monitors; completes exceptionally on non-2xx
+    private <T> CompletableFuture<T> makeHttpRequestAsync(String method, String urlString, Object message, Class<T> type) {
+        return http.exchange(method, urlString, message, type).thenApply(reply -> {
+            if (reply.isSuccessful()) {
+                return reply.body();
+            }
+            throw new CompletionException(new IOException("HTTP " + reply.code()));
+        });
     }
     
     private static class VerificationSession {
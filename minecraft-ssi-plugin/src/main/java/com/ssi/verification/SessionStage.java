@@ -0,0 +1,39 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonObject;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// One step of a verification flow (waiting for a connection, a proof, a web wallet answer...).
+// poll() is called from the engine's timer thread and must never block: return a future
+// that completes when the backend answers.
+public interface SessionStage {
+    
+    String name();
+    
+    // Consulted before every poll, so a stage may switch policy (e.g. once webhooks take over)
+    PollingPolicy pollingPolicy();
+    
+    long timeoutMillis();
+    
+    CompletableFuture<StageResult> poll(VerificationSessionEngine.Session session);
+    
+    void onTimeout(VerificationSessionEngine.Session session);
+    
+    // A newer session under the same key replaced this one before it finished (the player ran
+    // /verify again); release whatever the stage still holds on the backend
+    default void onReplaced(VerificationSessionEngine.Session session) {
+    }
+    
+    // Record ids (connection_id, pres_ex_id...) whose pushed events should reach this stage
+    default Collection<String> correlationIds() {
+        return List.of();
+    }
+    
+    // Handles a pushed event for one of the correlation ids; null means the event is not relevant
+    default CompletableFuture<StageResult> onEvent(VerificationSessionEngine.Session session, String topic, JsonObject payload) {
+        return null;
+    }
+}
@@ -3,39 +3,59 @@ package com.ssi.verification;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import okhttp3.*;
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.MapMeta;
-import org.bukkit.map.MapCanvas;
-import org.bukkit.map.MapRenderer;
-import org.bukkit.map.MapView;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.potion.PotionEffectType;
 
-import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 public class SimpleSSIPlugin extends JavaPlugin {
     
-    private OkHttpClient httpClient;
+    private static final String VERIFIER_API_URL = "http://localhost:4002";
+    private static final String WEB_WALLET_URL = "http://localhost:3001";
+    
+    private HttpTransport http;
+    private VerificationSessionEngine sessionEngine;
+    private AcaPyWebhookServer webhookServer;
+    private ProofRecordPoller proofRecordPoller;
+    private PollingPolicy webhookFallbackPolling;
+    private PollingPolicy connectionPolling;
+    private PollingPolicy proofPolling;
+    private PollingPolicy webVerificationPolling;
+    private ProofRequestTemplate webProofRequest;
     private Gson gson;
     private String acapyAdminUrl;
     private String credentialDefinitionId;
-    private final ConcurrentHashMap<String, Boolean> verifiedPlayers = new ConcurrentHashMap<>();
+    private VerifiedPlayerRegistry verifiedPlayers;
+    private ValidationResultCache validationCache;
+    private QrMapItems qrMaps;
+    private BoundedExecutor networkExecutor;
+    private TickTimings timings;
+    private VerificationMetrics metrics;
+    private MetricsServer metricsServer;
+    private MainThreadQueue mainThread;
+    private BoundedExecutor qrExecutor;
+    private QrEncodingPipeline qrPipeline;
+    private InvitationPool invitationPool;
+    private TrustedIssuerRegistry trustedIssuers;
+    private boolean auditTrustDecisions;
 
     @Override
     public void onEnable() {
@@ -44,12 +64,69 @@ public class SimpleSSIPlugin extends JavaPlugin {
         acapyAdminUrl = getConfig().getString("acapy.admin-url", "http://localhost:8021");
         credentialDefinitionId = getConfig().getString("acapy.credential-definition-id", "");
         
-        httpClient = new OkHttpClient.Builder()
-            .connectTimeout(10, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .build();
+        // Load who is already verified before anything can ask
+        try {
+            verifiedPlayers = new VerifiedPlayerRegistry(getLogger(),
+                VerifiedPlayerStore.open(getConfig().getString("storage.type", "sqlite"), getDataFolder(), getLogger()),
+                TimeUnit.DAYS.toMillis(getConfig().getLong("storage.verification-ttl-days", 0)));
+            verifiedPlayers.load();
+        } catch (IOException e) {
+            getLogger().severe("Could not load verified players: " + e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+        
+        // Monitors run as async calls, so the transport's dispatcher (not the scheduler) bounds concurrency
+        metrics = new VerificationMetrics();
+        http = new HttpTransport(HttpTransport.Settings.fromConfig(getConfig().getConfigurationSection("http")), getLogger(), metrics);
+        // The flows that still make blocking calls get their own pool instead of the JVM common pool
+        networkExecutor = new BoundedExecutor("SSIVerification-net",
+            getConfig().getInt("executors.network.threads", 8),
+            getConfig().getInt("executors.network.queue-capacity", 128));
+        timings = new TickTimings(this, getLogger(), TickTimings.Settings.fromConfig(getConfig().getConfigurationSection("timings")));
+        timings.start();
+        // Every async result that has to touch the server comes back through this one queue
+        mainThread = new MainThreadQueue(this, getLogger(), timings,
+            (long) (getConfig().getDouble("executors.main-thread.drain-budget-ms", 2.0) * 1000));
+        mainThread.start();
         
         gson = new Gson();
+        loadPollingPolicies();
+        validationCache = new ValidationResultCache(
+            TimeUnit.MINUTES.toMillis(getConfig().getLong("cache.validation.ttl-minutes", 30)),
+            getConfig().getInt("cache.validation.max-entries", 10_000));
+        
+        QrMapPool qrMapPool = new QrMapPool(getLogger(), new File(getDataFolder(), "qr-map-pool.yml"));
+        qrMapPool.load();
+        qrMaps = new QrMapItems(this, qrMapPool, timings);
+        getServer().getPluginManager().registerEvents(qrMaps, this);
+        qrExecutor = new BoundedExecutor("SSIVerification-qr",
+            getConfig().getInt("qrcode.pipeline.threads", 2),
+            getConfig().getInt("qrcode.pipeline.queue-capacity", 64));
+        qrPipeline = new QrEncodingPipeline(qrExecutor);
+        
+        sessionEngine = new VerificationSessionEngine("SSIVerification", getLogger());
+        sessionEngine.start();
+        startWebhookServer();
+        proofRecordPoller = new ProofRecordPoller(getLogger(), sessionEngine,
+            (path, reader) -> http.stream(new Request.Builder().url(acapyAdminUrl + path).build(), reader),
+            () -> acapyPolling(proofPolling).delayMillis(0));
+        invitationPool = new InvitationPool(getLogger(), sessionEngine,
+            this::prepareInvitation, this::discardInvitation,
+            getConfig().getInt("invitations.pool-size", 8),
+            getConfig().getInt("invitations.refill-batch", 4),
+            TimeUnit.MINUTES.toMillis(getConfig().getLong("invitations.max-age-minutes", 10)));
+        invitationPool.start();
+        metrics.gauge("ssi_verifications_in_progress", "Verification requests that have not reached an outcome yet",
+            metrics::inProgress);
+        metrics.gauge("ssi_verification_sessions_in_flight", "Verification sessions currently waiting on a wallet or backend",
+            sessionEngine::activeSessions);
+        metrics.gauge("ssi_invitations_ready", "Pre-created invitations ready to hand out", () -> invitationPool.stats().ready());
+        metrics.gauge("ssi_main_thread_backlog", "Tasks waiting for the main thread", () -> mainThread.stats().backlog());
+        startMetricsServer();
+        startTrustedIssuerRegistry();
+        webProofRequest = ProofRequestTemplate.webProofRequest(
+            ProofRequestTemplate.Definition.fromConfig(getConfig().getConfigurationSection("verification")));
         
         // Note: Credential definition ID is no longer required for flexible verification
         // The plugin now accepts credentials from any issuer with required attributes
@@ -57,11 +134,133 @@ public class SimpleSSIPlugin extends JavaPlugin {
         getLogger().info("Simple SSI Plugin enabled! Using flexible attribute-only verification.");
     }
     
+    @Override
+    public void onDisable() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        if (webhookServer != null) {
+            webhookServer.stop();
+        }
+        if (trustedIssuers != null) {
+            trustedIssuers.stop();
+        }
+        if (invitationPool != null) {
+            invitationPool.stop(2000);
+        }
+        if (sessionEngine != null) {
+            sessionEngine.shutdown();
+        }
+        if (qrExecutor != null) {
+            qrExecutor.shutdown(0);
+        }
+        if (networkExecutor != null) {
+            networkExecutor.shutdown(2000);
+        }
+        if (mainThread != null) {
+            mainThread.shutdown();
+        }
+        if (timings != null) {
+            timings.stop();
+        }
+        if (qrMaps != null) {
+            qrMaps.takeAll(Bukkit.getOnlinePlayers());
+        }
+        if (verifiedPlayers != null) {
+            verifiedPlayers.close();
+        }
+        if (http != null) {
+            http.shutdown();
+        }
+    }
+    
+    private void startWebhookServer() {
+        if (!getConfig().getBoolean("webhooks.enabled", true)) return;
+        
+        long fallbackMillis = TimeUnit.SECONDS.toMillis(getConfig().getLong("webhooks.fallback-poll-seconds", 15));
+        webhookFallbackPolling = PollingPolicy.fixed(fallbackMillis, 0.2);
+        AcaPyWebhookServer server = new AcaPyWebhookServer(getLogger(), sessionEngine,
+            getConfig().getString("webhooks.host", "127.0.0.1"),
+            getConfig().getInt("webhooks.port", 8099),
+            getConfig().getString("webhooks.path", "/webhooks"),
+            getConfig().getString("webhooks.api-key", ""));
+        try {
+            server.start();
+            webhookServer = server;
+        } catch (IOException e) {
+            getLogger().warning("Could not start ACA-Py webhook receiver, falling back to polling: " + e.getMessage());
+        }
+    }
+    
+    private void startMetricsServer() {
+        if (!getConfig().getBoolean("metrics.enabled", true)) return;
+        
+        MetricsServer server = new MetricsServer(getLogger(), metrics,
+            getConfig().getString("metrics.host", "127.0.0.1"),
+            getConfig().getInt("metrics.port", 9464),
+            getConfig().getString("metrics.path", "/metrics"));
+        try {
+            server.start();
+            metricsServer = server;
+        } catch (IOException e) {
+            getLogger().warning("Could not start the metrics endpoint: " + e.getMessage() + " (/ssistats still works)");
+        }
+    }
+    
+    // Optional local trust list; without it every issuer is checked by the remote /v2/validate-proof
+    private void startTrustedIssuerRegistry() {
+        String trustedDidsFile = getConfig().getString("trust.trusted-dids-file", "");
+        if (trustedDidsFile == null || trustedDidsFile.isBlank()) return;
+        
+        Path path = Path.of(trustedDidsFile);
+        if (!path.isAbsolute()) {
+            path = getDataFolder().toPath().resolve(path);
+        }
+        auditTrustDecisions = getConfig().getBoolean("trust.audit-remote", false);
+        trustedIssuers = new TrustedIssuerRegistry(getLogger(), path, validationCache::invalidateIssuer);
+        trustedIssuers.start();
+    }
+    
+    // Fast first checks that back off while the player is busy with their wallet; see polling: in config.yml
+    private void loadPollingPolicies() {
+        connectionPolling = PollingPolicy.fromConfig(getConfig().getConfigurationSection("polling.connection"),
+            new PollingPolicy(1000, 1.5, 8000, 0.2));
+        proofPolling = PollingPolicy.fromConfig(getConfig().getConfigurationSection("polling.proof"),
+            new PollingPolicy(1500, 1.5, 10_000, 0.2));
+        webVerificationPolling = PollingPolicy.fromConfig(getConfig().getConfigurationSection("polling.web-verification"),
+            new PollingPolicy(2000, 1.5, 10_000, 0.2));
+    }
+    
+    // ACA-Py stages only need a slow safety-net poll once webhooks are demonstrably arriving
+    private PollingPolicy acapyPolling(PollingPolicy normal) {
+        if (webhookServer != null && webhookServer.isReceiving()) {
+            return webhookFallbackPolling;
+        }
+        return normal;
+    }
+    
     // Credential definition discovery is no longer needed for flexible verification
     // The plugin now accepts any credential containing required attributes (department, age)
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        timings.enter(TickTimings.Category.COMMANDS);
+        try {
+            return dispatchCommand(sender, command, args);
+        } finally {
+            timings.exit();
+        }
+    }
+    
+    private boolean dispatchCommand(CommandSender sender, Command command, String[] args) {
+        // Admin commands also work from the console
+        if ("ssi".equals(command.getName())) {
+            return handleAdmin(sender, args);
+        }
+        if ("ssistats".equals(command.getName())) {
+            showStats(sender);
+            return true;
+        }
         if (!(sender instanceof Player player)) return true;
         
         if ("verify".equals(command.getName())) {
@@ -83,440 +282,357 @@ public class SimpleSSIPlugin extends JavaPlugin {
     }
     
     private void handleVerify(Player player) {
-        if (verifiedPlayers.getOrDefault(player.getName(), false)) {
+        if (verifiedPlayers.isVerified(player.getUniqueId())) {
             player.sendMessage(Component.text("✓ Already verified!", NamedTextColor.GREEN));
             return;
         }
         
+        // A pre-warmed invitation means the QR code arrives in this tick
+        InvitationPool.PreparedInvitation invitation = invitationPool.take();
+        if (invitation != null) {
+            getLogger().info("Using pre-created invitation " + invitation.connectionId() + " for player: " + player.getName());
+            metrics.begin(player.getUniqueId());
+            if (giveQRMap(player, invitation.pixels())) {
+                player.sendMessage(Component.text("✓ QR Code created! Scan with your SSI wallet.", NamedTextColor.GREEN));
+                monitorConnection(invitation.connectionId(), player);
+            } else {
+                metrics.cancel(player.getUniqueId());
+                discardInvitation(invitation);
+            }
+            return;
+        }
+        
+        if (!http.isAvailable(VERIFIER_API_URL)) {
+            player.sendMessage(Component.text("⚠ Verification temporarily unavailable, try again shortly", NamedTextColor.YELLOW));
+            return;
+        }
+        metrics.begin(player.getUniqueId());
         player.sendMessage(Component.text("Creating QR code...", NamedTextColor.YELLOW));
-        CompletableFuture.runAsync(() -> createVerification(player));
+        createVerification(player);
+    }
+    
+    // Invitations for the pool aren't tied to a player yet, so they get a generic label
+    private CompletableFuture<InvitationPool.PreparedInvitation> prepareInvitation() {
+        BackendProtocol.CreateInvitation request = new BackendProtocol.CreateInvitation("Minecraft-Server", "minecraft-player-pooled");
+        long started = System.nanoTime();
+        
+        return http.exchange("POST", "http://localhost:4002/v2/create-invitation", request, BackendProtocol.InvitationCreated.class).thenCompose(reply -> {
+            if (!reply.isSuccessful() || reply.body() == null) {
+                throw new IllegalStateException("create-invitation answered " + reply.code());
+            }
+            BackendProtocol.InvitationCreated invitation = reply.body();
+            if (invitation.invitationUrl() == null || invitation.connectionId() == null) {
+                throw new IllegalStateException("create-invitation response has no invitation");
+            }
+            String invitationUrl = invitation.invitationUrl();
+            String connectionId = invitation.connectionId();
+            return qrPipeline.encode(invitationUrl).thenApply(pixels -> {
+                metrics.recordStage(VerificationMetrics.Stage.INVITATION_POOL, started);
+                return new InvitationPool.PreparedInvitation(connectionId, invitationUrl, pixels, System.nanoTime());
+            });
+        });
+    }
+    
+    // Unused invitations are deleted so stale connection records don't pile up in ACA-Py
+    private CompletableFuture<?> discardInvitation(InvitationPool.PreparedInvitation invitation) {
+        return discardInvitation(invitation.connectionId());
+    }
+    
+    private CompletableFuture<?> discardInvitation(String connectionId) {
+        return http.send(new Request.Builder().url(acapyAdminUrl + "/connections/" + connectionId).delete().build())
+            .whenComplete((reply, error) -> {
+                if (error != null || !reply.isSuccessful()) {
+                    getLogger().fine("Could not delete unused invitation " + connectionId);
+                }
+            });
     }
     
     private void handleWebVerify(Player player) {
-        if (verifiedPlayers.getOrDefault(player.getName(), false)) {
+        if (verifiedPlayers.isVerified(player.getUniqueId())) {
             player.sendMessage(Component.text("✓ Already verified!", NamedTextColor.GREEN));
             return;
         }
         
+        if (!http.isAvailable(WEB_WALLET_URL)) {
+            player.sendMessage(Component.text("⚠ Verification temporarily unavailable, try again shortly", NamedTextColor.YELLOW));
+            return;
+        }
+        metrics.begin(player.getUniqueId());
+        try {
+            networkExecutor.execute(() -> createWebVerification(player));
+        } catch (RejectedExecutionException e) {
+            metrics.cancel(player.getUniqueId());
+            player.sendMessage(Component.text("⏳ Verification is busy right now, try again in a moment", NamedTextColor.YELLOW));
+            return;
+        }
         player.sendMessage(Component.text("🌐 Opening web wallet in browser...", NamedTextColor.YELLOW));
-        
-        CompletableFuture.runAsync(() -> createWebVerification(player));
     }
     
     private void createVerification(Player player) {
-        try {
-            getLogger().info("Creating verification for player: " + player.getName());
+        getLogger().info("Creating verification for player: " + player.getName());
+        
+        // Use ssi-tutorial verifier API (simple approach)
+        BackendProtocol.CreateInvitation request = new BackendProtocol.CreateInvitation(
+            "Minecraft-Server-" + player.getName(), "minecraft-player-" + player.getName());
+        long started = System.nanoTime();
+        
+        http.exchange("POST", "http://localhost:4002/v2/create-invitation", request, BackendProtocol.InvitationCreated.class).thenAccept(reply -> {
+            getLogger().info("ACA-Py response: " + reply.code() + " - " + reply.body());
             
-            // Use ssi-tutorial verifier API (simple approach)
-            JsonObject request = new JsonObject();
-            request.addProperty("label", "Minecraft-Server-" + player.getName());
-            request.addProperty("alias", "minecraft-player-" + player.getName());
+            if (!reply.isSuccessful()) {
+                sendMessage(player, Component.text("Failed to create invitation: HTTP " + reply.code(), NamedTextColor.RED));
+                metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
+                return;
+            }
             
-            RequestBody body = RequestBody.create(request.toString(), MediaType.get("application/json"));
-            Request httpRequest = new Request.Builder()
-                .url("http://localhost:4002/v2/create-invitation")
-                .post(body)
-                .build();
+            BackendProtocol.InvitationCreated invitation = reply.body();
+            if (invitation == null || invitation.invitationUrl() == null || invitation.connectionId() == null) {
+                sendMessage(player, Component.text("Invalid response from verification service", NamedTextColor.RED));
+                metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
+                return;
+            }
             
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "No response body";
-                getLogger().info("ACA-Py response: " + response.code() + " - " + responseBody);
-                
-                if (!response.isSuccessful()) {
-                    sendMessage(player, Component.text("Failed to create invitation: " + responseBody, NamedTextColor.RED));
-                    return;
-                }
-                
-                JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-                
-                if (!responseJson.has("invitation_url")) {
-                    sendMessage(player, Component.text("Invalid response from verification service", NamedTextColor.RED));
+            String invitationUrl = invitation.invitationUrl();
+            String connectionId = invitation.connectionId();
+            getLogger().info("Generated invitation URL: " + invitationUrl);
+            getLogger().info("Connection ID: " + connectionId);
+            
+            // Encode off the main thread; the main thread only attaches the finished map
+            qrPipeline.encode(invitationUrl).whenComplete((pixels, error) -> {
+                if (error != null) {
+                    if (error instanceof RejectedExecutionException) {
+                        sendMessage(player, Component.text("Verification is busy right now - please try /verify again in a moment", NamedTextColor.RED));
+                    } else {
+                        getLogger().warning("Failed to encode QR code for " + player.getName() + ": " + error.getMessage());
+                        sendMessage(player, Component.text("Failed to create QR code", NamedTextColor.RED));
+                    }
+                    metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
                     return;
                 }
+                metrics.recordStage(VerificationMetrics.Stage.INVITATION, started);
                 
-                String invitationUrl = responseJson.get("invitation_url").getAsString();
-                String connectionId = responseJson.get("connection_id").getAsString();
-                getLogger().info("Generated invitation URL: " + invitationUrl);
-                getLogger().info("Connection ID: " + connectionId);
-                
-                // Give QR map
-                Bukkit.getScheduler().runTask(this, () -> {
-                    giveQRMap(player, invitationUrl);
-                    player.sendMessage(Component.text("✓ QR Code created! Scan with your SSI wallet.", NamedTextColor.GREEN));
+                // Monitor the connection only once the player actually holds the QR code; otherwise
+                // nobody can scan it, so the invitation is deleted like an unused pooled one
+                mainThread.execute(() -> {
+                    if (giveQRMap(player, pixels)) {
+                        player.sendMessage(Component.text("✓ QR Code created! Scan with your SSI wallet.", NamedTextColor.GREEN));
+                        monitorConnection(connectionId, player);
+                    } else {
+                        metrics.cancel(player.getUniqueId());
+                        discardInvitation(connectionId);
+                    }
                 });
-                
-                // Start monitoring this specific connection
-                monitorConnection(connectionId, player);
-                
+            });
+        }).exceptionally(e -> {
+            metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
+            if (HttpTransport.BackendUnavailableException.isCause(e)) {
+                getLogger().warning("Verification for " + player.getName() + " refused: " + e.getMessage());
+                sendMessage(player, Component.text("⚠ Verification temporarily unavailable, try again shortly", NamedTextColor.YELLOW));
+                return null;
             }
-        } catch (Exception e) {
             getLogger().severe("Verification failed for " + player.getName() + ": " + e.getMessage());
             e.printStackTrace();
             sendMessage(player, Component.text("System error: " + e.getMessage(), NamedTextColor.RED));
-        }
+            return null;
+        });
     }
     
-    private void giveQRMap(Player player, String qrData) {
-        try {
-            QRCodeWriter qrWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrWriter.encode(qrData, BarcodeFormat.QR_CODE, 128, 128);
-            BufferedImage qrImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-            
-            ItemStack mapItem = new ItemStack(Material.FILLED_MAP);
-            MapMeta mapMeta = (MapMeta) mapItem.getItemMeta();
-            
-            MapView mapView = Bukkit.createMap(player.getWorld());
-            mapView.getRenderers().clear();
-            
-            mapView.addRenderer(new MapRenderer() {
-                @Override
-                public void render(MapView map, MapCanvas canvas, Player player) {
-                    for (int x = 0; x < 128; x++) {
-                        for (int y = 0; y < 128; y++) {
-                            if (x < qrImage.getWidth() && y < qrImage.getHeight()) {
-                                int rgb = qrImage.getRGB(x, y);
-                                byte color = (rgb == -1) ? (byte) 0 : (byte) 119;
-                                canvas.setPixel(x, y, color);
-                            }
-                        }
-                    }
-                }
-            });
-            
-            mapMeta.setMapView(mapView);
-            mapMeta.setDisplayName("SSI Verification QR Code");
-            mapItem.setItemMeta(mapMeta);
-            
-            player.getInventory().addItem(mapItem);
-            
-        } catch (Exception e) {
-            getLogger().warning("Failed to create QR map: " + e.getMessage());
+    private boolean giveQRMap(Player player, byte[] pixels) {
+        if (!player.isOnline()) return false;
+        if (!qrMaps.give(player, new QrMapRenderer(pixels, timings))) {
+            player.sendMessage(Component.text("Your inventory is full - free a slot and run /verify again", NamedTextColor.RED));
+            return false;
         }
+        return true;
     }
     
     private void monitorConnection(String connectionId, Player player) {
-        final int[] taskId = new int[1];
-        
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            private boolean proofSent = false;
-            
-            @Override
-            public void run() {
-                attempts++;
-                
-                if (attempts > 40) { // 2 minutes timeout
-                    sendMessage(player, Component.text("Verification timeout", NamedTextColor.RED));
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
-                    return;
-                }
-                
-                try {
-                    // Check specific connection status
-                    Request request = new Request.Builder()
-                        .url("http://localhost:4002/v2/connections?connectionId=" + connectionId)
-                        .build();
-                    
-                    try (Response response = httpClient.newCall(request).execute()) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            String responseBody = response.body().string();
-                            getLogger().info("Connection status check #" + attempts);
-                            
-                            JsonObject connectionData = JsonParser.parseString(responseBody).getAsJsonObject();
-                            String state = connectionData.get("state").getAsString();
-                            
-                            if ("active".equals(state) && !proofSent) {
-                                proofSent = true;
-                                getLogger().info("Connection is active! Sending proof request...");
-                                
-                                sendMessage(player, Component.text("✓ Wallet connected! Sending proof request...", NamedTextColor.GREEN));
-                                
-                                // Remove QR map
-                                Bukkit.getScheduler().runTask(SimpleSSIPlugin.this, () -> removeQRMaps(player));
-                                
-                                // Send proof request
-                                sendProofRequest(connectionId, player);
-                                
-                                // Stop this monitoring task
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    getLogger().warning("Connection monitoring error: " + e.getMessage());
-                }
-            }
-        }, 60L, 60L).getTaskId(); // Check every 3 seconds
+        sessionEngine.start(player.getUniqueId().toString(), player, new ConnectionStage(connectionId, false));
     }
     
-    private void sendProofRequest(String connectionId, Player player) {
-        try {
-            getLogger().info("Sending proof request for connection: " + connectionId);
-            
-            // Use ssi-tutorial verifier API approach (like in proof.controller.ts)
-            JsonObject proofRequest = new JsonObject();
-            proofRequest.addProperty("proofRequestlabel", "Minecraft Server Verification");
-            proofRequest.addProperty("connectionId", connectionId);
-            proofRequest.addProperty("version", "1.0");
+    private CompletableFuture<StageResult> sendProofRequest(String connectionId, Player player) {
+        getLogger().info("Sending proof request for connection: " + connectionId);
+        
+        // Use ssi-tutorial verifier API approach (like in proof.controller.ts)
+        BackendProtocol.SendProofRequest proofRequest = new BackendProtocol.SendProofRequest(
+            "Minecraft Server Verification", connectionId, "1.0");
+        
+        getLogger().info("Proof request payload: " + proofRequest);
+        long started = System.nanoTime();
+        
+        return http.exchange("POST", "http://localhost:4002/v2/send-proof-request", proofRequest, BackendProtocol.ProofRequestSent.class).thenApply(reply -> {
+            metrics.recordStage(VerificationMetrics.Stage.PROOF_REQUEST, started);
+            getLogger().info("Proof request response: " + reply.code() + " - " + reply.body());
             
-            RequestBody body = RequestBody.create(proofRequest.toString(), MediaType.get("application/json"));
-            Request httpRequest = new Request.Builder()
-                .url("http://localhost:4002/v2/send-proof-request")
-                .post(body)
-                .build();
+            if (!reply.isSuccessful()) {
+                getLogger().warning("Proof request failed: " + reply.code() + " - " + reply.body());
+                sendMessage(player, Component.text("Failed to send proof request", NamedTextColor.RED));
+                metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
+                return StageResult.complete();
+            }
             
-            getLogger().info("Proof request payload: " + proofRequest.toString());
+            sendMessage(player, Component.text("Proof request sent! Please approve in your wallet.", NamedTextColor.YELLOW));
             
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "No response";
-                getLogger().info("Proof request response: " + response.code() + " - " + responseBody);
-                
-                if (response.isSuccessful()) {
-                    sendMessage(player, Component.text("Proof request sent! Please approve in your wallet.", NamedTextColor.YELLOW));
-                    
-                    JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-                    if (responseJson.has("pres_ex_id")) {
-                        String proofExchangeId = responseJson.get("pres_ex_id").getAsString();
-                        monitorProofStatus(proofExchangeId, player);
-                    } else {
-                        // Fallback: monitor all proof records for this connection
-                        monitorProofStatusByConnection(connectionId, player);
-                    }
-                    
-                } else {
-                    getLogger().warning("Proof request failed: " + response.code() + " - " + responseBody);
-                    sendMessage(player, Component.text("Failed to send proof request", NamedTextColor.RED));
-                }
+            if (reply.body().presExId() != null) {
+                return StageResult.advance(new ProofRecordStage(reply.body().presExId()));
             }
-        } catch (Exception e) {
+            // Fallback: monitor all proof records for this connection
+            return StageResult.advance(new ProofByConnectionStage(connectionId));
+        }).exceptionally(e -> {
             getLogger().severe("Proof request failed: " + e.getMessage());
             e.printStackTrace();
-        }
+            metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
+            return StageResult.complete();
+        });
     }
     
-    private JsonArray buildFlexibleRestrictions() {
-        JsonArray restrictions = new JsonArray();
+    // A presented proof is trusted locally (trusted-issuer list or cached decision) or goes through the remote DID check
+    private CompletableFuture<StageResult> validateProof(JsonObject record, Player player) {
+        String proofExchangeId = record.get("pres_ex_id").getAsString();
+        List<String> credentialDefinitions = presentedCredentialDefinitions(record);
         
+        boolean listed = trustedIssuers != null && !credentialDefinitions.isEmpty()
+            && credentialDefinitions.stream().allMatch(credDefId -> trustedIssuers.isTrusted(issuerOf(credDefId)));
+        boolean cached = !credentialDefinitions.isEmpty() && credentialDefinitions.stream()
+            .allMatch(credDefId -> validationCache.isTrusted(player.getUniqueId(), issuerOf(credDefId), credDefId));
+        if (!listed && !cached) {
+            return validateProofWithDIDCheck(proofExchangeId, player, credentialDefinitions);
+        }
+        
+        // Trust is known, but the presentation itself must still verify cryptographically in ACA-Py
+        getLogger().info("Issuer trust " + (listed ? "found in local trusted-issuer list" : "cached") + " for "
+            + player.getName() + ", skipping remote DID validation");
+        return presentationVerified(record).thenCompose(verified -> {
+            if (!verified) {
+                return validateProofWithDIDCheck(proofExchangeId, player, credentialDefinitions);
+            }
+            if (listed && auditTrustDecisions) {
+                auditTrustDecision(proofExchangeId, player, issuerOf(credentialDefinitions.get(0)));
+            }
+            for (String credDefId : credentialDefinitions) {
+                validationCache.recordTrusted(player.getUniqueId(), issuerOf(credDefId), credDefId);
+            }
+            completeVerification(player, issuerOf(credentialDefinitions.get(0)), "Verification completed");
+            return StageResult.completeFuture();
+        });
+    }
+    
+    // Asks the backend for its own verdict after a local decision and logs any disagreement
+    private void auditTrustDecision(String proofExchangeId, Player player, String issuerDid) {
+        BackendProtocol.ValidateProof validationRequest = new BackendProtocol.ValidateProof(proofExchangeId);
+        http.exchange("POST", "http://localhost:4002/v2/validate-proof", validationRequest, BackendProtocol.ProofValidation.class).whenComplete((reply, error) -> {
+            if (error != null || !reply.isSuccessful() || reply.body() == null) {
+                getLogger().warning("Trust audit for " + player.getName() + " could not reach the validation service");
+                return;
+            }
+            if (!reply.body().success()) {
+                getLogger().warning("Trust audit mismatch: " + issuerDid + " is in " + trustedIssuers.file().getFileName()
+                    + " but the validation service rejected the proof of " + player.getName());
+            }
+        });
+    }
+    
+    // cred_def_ids of the credentials in an indy presentation (by_format.pres.indy.identifiers)
+    private List<String> presentedCredentialDefinitions(JsonObject record) {
+        List<String> credDefIds = new ArrayList<>();
         try {
-            // Query all available credential definitions
-            Request request = new Request.Builder()
-                .url(acapyAdminUrl + "/credential-definitions/created")
-                .build();
-            
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    JsonObject responseJson = JsonParser.parseString(response.body().string()).getAsJsonObject();
-                    JsonArray credDefIds = responseJson.getAsJsonArray("credential_definition_ids");
-                    
-                    // Add each credential definition as a valid restriction
-                    for (int i = 0; i < credDefIds.size(); i++) {
-                        JsonObject restriction = new JsonObject();
-                        restriction.addProperty("cred_def_id", credDefIds.get(i).getAsString());
-                        restrictions.add(restriction);
-                    }
-                    
-                    getLogger().info("Built flexible restrictions with " + restrictions.size() + " credential definitions");
+            JsonArray identifiers = record.getAsJsonObject("by_format").getAsJsonObject("pres")
+                .getAsJsonObject("indy").getAsJsonArray("identifiers");
+            for (int i = 0; i < identifiers.size(); i++) {
+                JsonObject identifier = identifiers.get(i).getAsJsonObject();
+                if (identifier.has("cred_def_id")) {
+                    credDefIds.add(identifier.get("cred_def_id").getAsString());
                 }
             }
-        } catch (Exception e) {
-            getLogger().warning("Failed to build flexible restrictions: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Record without a presentation body (older agent or trimmed webhook): no cache lookup
+            credDefIds.clear();
         }
-        
-        // If no credential definitions found, add a fallback broad restriction
-        if (restrictions.size() == 0) {
-            JsonObject fallback = new JsonObject();
-            fallback.addProperty("schema_name", "Identity_Schema");
-            restrictions.add(fallback);
-            getLogger().info("Using fallback restriction: Identity_Schema");
+        return credDefIds;
+    }
+    
+    // Cred def ids look like <issuer DID>:3:CL:<schema seq>:<tag>
+    private static String issuerOf(String credDefId) {
+        int colon = credDefId.indexOf(':');
+        return colon > 0 ? credDefId.substring(0, colon) : credDefId;
+    }
+    
+    private CompletableFuture<Boolean> presentationVerified(JsonObject record) {
+        if ("done".equals(record.get("state").getAsString()) && record.has("verified")) {
+            return CompletableFuture.completedFuture("true".equals(record.get("verified").getAsString()));
         }
         
-        return restrictions;
+        Request request = new Request.Builder()
+            .url(acapyAdminUrl + "/present-proof-2.0/records/" + record.get("pres_ex_id").getAsString() + "/verify-presentation")
+            .post(RequestBody.create("{}", MediaType.get("application/json")))
+            .build();
+        return http.exchange(request, BackendProtocol.PresentationVerification.class)
+            .thenApply(reply -> reply.isSuccessful() && reply.body() != null && reply.body().verified())
+            .exceptionally(e -> false);
     }
     
-    private void monitorProofStatus(String proofExchangeId, Player player) {
-        final int[] taskId = new int[1];
+    private void completeVerification(Player player, String issuerDID, String message) {
+        verifiedPlayers.markVerified(player.getUniqueId(), player.getName(), issuerDID, VerifiedPlayer.TIER_TRUSTED_ISSUER);
+        metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.VERIFIED);
+        sendMessage(player, Component.text("✓ " + message, NamedTextColor.GREEN));
+        getLogger().info("Player " + player.getName() + " verified successfully by issuer: " + (issuerDID != null ? issuerDID : "unknown"));
         
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            
-            @Override
-            public void run() {
-                attempts++;
-                
-                if (attempts > 60) { // 3 minutes timeout  
-                    sendMessage(player, Component.text("Proof verification timeout", NamedTextColor.RED));
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
-                    return;
-                }
-                
-                try {
-                    // Check proof status using ACA-Py API
-                    Request request = new Request.Builder()
-                        .url(acapyAdminUrl + "/present-proof-2.0/records/" + proofExchangeId)
-                        .build();
-                    
-                    try (Response response = httpClient.newCall(request).execute()) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            String responseBody = response.body().string();
-                            getLogger().info("Proof status check #" + attempts + ": " + responseBody);
-                            
-                            JsonObject proofData = JsonParser.parseString(responseBody).getAsJsonObject();
-                            String state = proofData.get("state").getAsString();
-                            
-                            if ("presentation-received".equals(state) || "done".equals(state)) {
-                                // Proof was received - now validate DID trust
-                                String proofExchangeId = proofData.get("pres_ex_id").getAsString();
-                                validateProofWithDIDCheck(proofExchangeId, player, taskId[0]);
-                                return;
-                                
-                            } else if ("abandoned".equals(state) || "request-rejected".equals(state)) {
-                                sendMessage(player, Component.text("Verification was rejected or abandoned", NamedTextColor.RED));
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                            }
-                            
-                            // Still waiting - continue monitoring
-                            if (attempts == 1) {
-                                sendMessage(player, Component.text("Please check your wallet and approve the proof request!", NamedTextColor.GOLD));
-                            }
-                            
-                        }
-                    }
-                } catch (Exception e) {
-                    getLogger().warning("Proof status monitoring error: " + e.getMessage());
-                }
-            }
-        }, 60L, 60L).getTaskId(); // Check every 3 seconds
+        giveGlowingEffect(player);
     }
     
-    private void monitorProofStatusByConnection(String connectionId, Player player) {
-        final int[] taskId = new int[1];
-        
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            
-            @Override
-            public void run() {
-                attempts++;
-                
-                if (attempts > 60) { // 3 minutes timeout  
-                    sendMessage(player, Component.text("Proof verification timeout", NamedTextColor.RED));
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
-                    return;
-                }
-                
-                try {
-                    // Check all proof records to find one for this connection
-                    Request request = new Request.Builder()
-                        .url(acapyAdminUrl + "/present-proof-2.0/records")
-                        .build();
-                    
-                    try (Response response = httpClient.newCall(request).execute()) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            String responseBody = response.body().string();
-                            getLogger().info("Proof records check #" + attempts);
-                            
-                            JsonObject recordsData = JsonParser.parseString(responseBody).getAsJsonObject();
-                            JsonArray records = recordsData.getAsJsonArray("results");
-                            
-                            for (int i = 0; i < records.size(); i++) {
-                                JsonObject record = records.get(i).getAsJsonObject();
-                                if (record.has("connection_id") && 
-                                    connectionId.equals(record.get("connection_id").getAsString())) {
-                                    
-                                    String state = record.get("state").getAsString();
-                                    
-                                    if ("presentation-received".equals(state) || "done".equals(state)) {
-                                        // Proof was received - now validate DID trust
-                                        String proofExchangeId = record.get("pres_ex_id").getAsString();
-                                        validateProofWithDIDCheck(proofExchangeId, player, taskId[0]);
-                                        return;
-                                        
-                                    } else if ("abandoned".equals(state) || "request-rejected".equals(state)) {
-                                        sendMessage(player, Component.text("Verification was rejected or abandoned", NamedTextColor.RED));
-                                        Bukkit.getScheduler().cancelTask(taskId[0]);
-                                        return;
-                                    }
-                                }
-                            }
-                            
-                            // Still waiting - continue monitoring
-                            if (attempts == 1) {
-                                sendMessage(player, Component.text("Please check your wallet and approve the proof request!", NamedTextColor.GOLD));
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    getLogger().warning("Proof status monitoring error: " + e.getMessage());
-                }
-            }
-        }, 60L, 60L).getTaskId(); // Check every 3 seconds
+    private void giveGlowingEffect(Player player) {
+        mainThread.execute(() -> timings.run(TickTimings.Category.EFFECTS, () -> Bukkit.dispatchCommand(
+            Bukkit.getConsoleSender(), "effect give " + player.getName() + " minecraft:glowing 999999 0 true")));
     }
     
-    private void validateProofWithDIDCheck(String proofExchangeId, Player player, int taskId) {
-        try {
-            getLogger().info("Validating proof with DID check for exchange: " + proofExchangeId);
-            
-            JsonObject validationRequest = new JsonObject();
-            validationRequest.addProperty("proofRecordId", proofExchangeId);
-            
-            RequestBody body = RequestBody.create(validationRequest.toString(), MediaType.get("application/json"));
-            Request httpRequest = new Request.Builder()
-                .url("http://localhost:4002/v2/validate-proof")
-                .post(body)
-                .build();
+    private CompletableFuture<StageResult> validateProofWithDIDCheck(String proofExchangeId, Player player, List<String> credentialDefinitions) {
+        getLogger().info("Validating proof with DID check for exchange: " + proofExchangeId);
+        
+        BackendProtocol.ValidateProof validationRequest = new BackendProtocol.ValidateProof(proofExchangeId);
+        
+        return http.exchange("POST", "http://localhost:4002/v2/validate-proof", validationRequest, BackendProtocol.ProofValidation.class).thenApply(reply -> {
+            getLogger().info("DID validation response: " + reply.code() + " - " + reply.body());
+            BackendProtocol.ProofValidation validation = reply.body();
             
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "No response";
-                getLogger().info("DID validation response: " + response.code() + " - " + responseBody);
-                
-                if (response.isSuccessful()) {
-                    JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-                    boolean success = responseJson.get("success").getAsBoolean();
+            if (reply.isSuccessful()) {
+                if (validation.success()) {
+                    // DID is trusted - verification successful
+                    String message = validation.message() != null ? validation.message() : "Verification completed";
+                    String issuerDID = validation.issuerDid();
                     
-                    if (success) {
-                        // DID is trusted - verification successful
-                        String message = responseJson.has("message") ? responseJson.get("message").getAsString() : "Verification completed";
-                        String issuerDID = responseJson.has("issuerDID") ? responseJson.get("issuerDID").getAsString() : "unknown";
-                        
-                        verifiedPlayers.put(player.getName(), true);
-                        sendMessage(player, Component.text("✓ " + message, NamedTextColor.GREEN));
-                        getLogger().info("Player " + player.getName() + " verified successfully by issuer: " + issuerDID);
-                        
-                        // Give glowing effect
-                        Bukkit.getScheduler().runTask(SimpleSSIPlugin.this, () -> {
-                            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), 
-                                "effect give " + player.getName() + " minecraft:glowing 999999 0 true");
-                        });
-                        
-                    } else {
-                        // DID validation failed
-                        String errorMessage = responseJson.has("error") ? responseJson.get("error").getAsString() : "Verification failed";
-                        String issuerDID = responseJson.has("issuerDID") ? responseJson.get("issuerDID").getAsString() : "unknown";
-                        
-                        sendMessage(player, Component.text("✗ " + errorMessage, NamedTextColor.RED));
-                        getLogger().warning("DID validation failed for player " + player.getName() + ": " + errorMessage + " (DID: " + issuerDID + ")");
+                    // Remember the trust decision for this exact credential
+                    for (String credDefId : credentialDefinitions) {
+                        validationCache.recordTrusted(player.getUniqueId(), issuerOf(credDefId), credDefId);
                     }
+                    completeVerification(player, issuerDID, message);
                     
                 } else {
-                    // HTTP error
-                    JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-                    String errorMessage = responseJson.has("error") ? responseJson.get("error").getAsString() : "Validation service error";
+                    // DID validation failed
+                    String errorMessage = validation.error() != null ? validation.error() : "Verification failed";
+                    String issuerDID = validation.issuerDid() != null ? validation.issuerDid() : "unknown";
                     
+                    metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
                     sendMessage(player, Component.text("✗ " + errorMessage, NamedTextColor.RED));
-                    getLogger().warning("DID validation service error for player " + player.getName() + ": " + errorMessage);
+                    getLogger().warning("DID validation failed for player " + player.getName() + ": " + errorMessage + " (DID: " + issuerDID + ")");
                 }
                 
-                Bukkit.getScheduler().cancelTask(taskId);
+            } else {
+                // HTTP error
+                String errorMessage = validation != null && validation.error() != null ? validation.error() : "Validation service error";
                 
+                metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
+                sendMessage(player, Component.text("✗ " + errorMessage, NamedTextColor.RED));
+                getLogger().warning("DID validation service error for player " + player.getName() + ": " + errorMessage);
             }
-        } catch (Exception e) {
+            
+            return StageResult.complete();
+        }).exceptionally(e -> {
             getLogger().severe("DID validation failed: " + e.getMessage());
+            metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
             sendMessage(player, Component.text("✗ Verification system error", NamedTextColor.RED));
-            Bukkit.getScheduler().cancelTask(taskId);
             e.printStackTrace();
-        }
+            return StageResult.complete();
+        });
     }
     
     private void createWebVerification(Player player) {
@@ -530,6 +646,7 @@ public class SimpleSSIPlugin extends JavaPlugin {
             launchBrowserPopup(playerName, playerUUID, player);
             
         } catch (Exception e) {
+            metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
             getLogger().severe("Web verification failed for " + player.getName() + ": " + e.getMessage());
             e.printStackTrace();
             sendMessage(player, Component.text("Web verification system error", NamedTextColor.RED));
@@ -546,6 +663,7 @@ public class SimpleSSIPlugin extends JavaPlugin {
             String actualVerificationId = sendDirectProofRequestToWebWallet(playerName, playerUUID, initialSessionId, player);
             
             if (actualVerificationId == null) {
+                metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
                 sendMessage(player, Component.text("❌ Failed to create verification session", NamedTextColor.RED));
                 return;
             }
@@ -557,7 +675,7 @@ public class SimpleSSIPlugin extends JavaPlugin {
             sendMessage(player, Component.text("→ Window will auto-close after verification", NamedTextColor.GRAY));
             
             // Open the simple web browser that works reliably
-            SimpleWebBrowser webBrowser = new SimpleWebBrowser(this, player, actualVerificationId, httpClient);
+            SimpleWebBrowser webBrowser = new SimpleWebBrowser(this, player, actualVerificationId, http, networkExecutor);
             webBrowser.openWebWallet();
             
             // Monitor verification session using the actual verification ID from web wallet
@@ -576,88 +694,42 @@ public class SimpleSSIPlugin extends JavaPlugin {
         try {
             getLogger().info("Sending direct proof request to web wallet for player: " + playerName);
             
-            // Send proof request notification to web wallet (Bifold-compatible format)
-            JsonObject webProofRequest = new JsonObject();
-            webProofRequest.addProperty("type", "web_proof_request");
-            webProofRequest.addProperty("verificationSessionId", verificationSessionId);
-            webProofRequest.addProperty("title", "Minecraft Web Verification");
-            webProofRequest.addProperty("message", playerName + " requests verification via web wallet (Bifold-compatible)");
-            webProofRequest.addProperty("timestamp", java.time.Instant.now().toString());
-            
-            // Add requester object as expected by web wallet API
-            JsonObject requester = new JsonObject();
-            requester.addProperty("playerName", playerName);
-            requester.addProperty("playerUUID", playerUUID);
-            webProofRequest.add("requester", requester);
-            
-            // Add requestedAttributes array as expected by web wallet API
-            JsonArray requestedAttributesArray = new JsonArray();
-            requestedAttributesArray.add("name"); 
-            requestedAttributesArray.add("email");
-            requestedAttributesArray.add("department");
-            requestedAttributesArray.add("issuer_did");
-            requestedAttributesArray.add("age");
-            webProofRequest.add("requestedAttributes", requestedAttributesArray);
-            
-            // Include proof request details (like what Bifold receives)
-            JsonObject proofRequestData = new JsonObject();
-            proofRequestData.addProperty("name", "Minecraft Web Verification");
-            proofRequestData.addProperty("version", "1.0");
-            
-            JsonObject requestedAttributes = new JsonObject();
-            JsonObject nameAttr = new JsonObject();
-            nameAttr.addProperty("name", "name");
-            requestedAttributes.add("attr_name", nameAttr);
-            
-            JsonObject emailAttr = new JsonObject();
-            emailAttr.addProperty("name", "email");
-            requestedAttributes.add("attr_email", emailAttr);
-            
-            JsonObject deptAttr = new JsonObject();
-            deptAttr.addProperty("name", "department");
-            requestedAttributes.add("attr_department", deptAttr);
-            
-            JsonObject issuerAttr = new JsonObject();
-            issuerAttr.addProperty("name", "issuer_did");
-            requestedAttributes.add("attr_issuer_did", issuerAttr);
-            
-            JsonObject ageAttr = new JsonObject();
-            ageAttr.addProperty("name", "age");
-            requestedAttributes.add("attr_age", ageAttr);
-            
-            proofRequestData.add("requested_attributes", requestedAttributes);
-            proofRequestData.add("requested_predicates", new JsonObject());
-            
-            webProofRequest.add("proofRequestData", proofRequestData);
-            
-            RequestBody body = RequestBody.create(webProofRequest.toString(), MediaType.get("application/json"));
+            // Bifold-compatible proof request, compiled from config.yml at startup; only the
+            // session, player, nonce and timestamp are filled in here
             Request httpRequest = new Request.Builder()
                 .url("http://localhost:3001/api/minecraft/verify")
-                .post(body)
+                .post(webProofRequest.body(verificationSessionId, playerName, playerUUID))
                 .build();
             
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
-                String responseBody = response.body() != null ? response.body().string() : "No response";
-                getLogger().info("Web wallet proof request response: " + response.code() + " - " + responseBody);
+            long started = System.nanoTime();
+            try (Response response = http.newCall(httpRequest).execute()) {
+                metrics.recordStage(VerificationMetrics.Stage.PROOF_REQUEST, started);
+                BackendProtocol.Decoded<BackendProtocol.VerificationStarted> reply;
+                try {
+                    reply = BackendProtocol.decode(response.code(),
+                        response.body() != null ? response.body().charStream() : Reader.nullReader(),
+                        BackendProtocol.VerificationStarted.class);
+                } catch (IOException parseEx) {
+                    getLogger().warning("Failed to parse verification ID from response: " + parseEx.getMessage());
+                    return null;
+                }
+                getLogger().info("Web wallet proof request response: " + reply.code() + " - " + reply.body());
                 
-                if (response.isSuccessful()) {
+                if (reply.isSuccessful()) {
                     getLogger().info("Proof request sent successfully to web wallet");
                     
-                    // Extract verificationId from response
-                    try {
-                        JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-                        if (responseJson.has("verificationId")) {
-                            String actualVerificationId = responseJson.get("verificationId").getAsString();
-                            getLogger().info("[SSIVerification] Extracted verification ID: " + actualVerificationId);
-                            return actualVerificationId;
-                        }
-                    } catch (Exception parseEx) {
-                        getLogger().warning("Failed to parse verification ID from response: " + parseEx.getMessage());
+                    String actualVerificationId = reply.body().verificationId();
+                    if (actualVerificationId != null) {
+                        getLogger().info("[SSIVerification] Extracted verification ID: " + actualVerificationId);
+                        return actualVerificationId;
                     }
                 } else {
-                    getLogger().warning("Failed to send proof request to web wallet: " + responseBody);
+                    getLogger().warning("Failed to send proof request to web wallet: HTTP " + reply.code());
                 }
             }
+        } catch (HttpTransport.BackendUnavailableException e) {
+            getLogger().warning("Web proof request for " + playerName + " refused: " + e.getMessage());
+            sendMessage(player, Component.text("⚠ Verification temporarily unavailable, try again shortly", NamedTextColor.YELLOW));
         } catch (Exception e) {
             getLogger().severe("Failed to send proof request to web wallet: " + e.getMessage());
             e.printStackTrace();
@@ -672,20 +744,15 @@ public class SimpleSSIPlugin extends JavaPlugin {
             getLogger().info("Sending invitation to web wallet for connection: " + connectionId);
             
             // Send invitation to web wallet for automatic acceptance
-            JsonObject webWalletRequest = new JsonObject();
-            webWalletRequest.addProperty("type", "web_invitation");
-            webWalletRequest.addProperty("invitationUrl", invitationUrl);
-            webWalletRequest.addProperty("connectionId", connectionId);
-            webWalletRequest.addProperty("playerName", playerName);
-            webWalletRequest.addProperty("playerUUID", playerUUID);
-            
-            RequestBody body = RequestBody.create(webWalletRequest.toString(), MediaType.get("application/json"));
+            BackendProtocol.WebInvitation webWalletRequest = new BackendProtocol.WebInvitation(
+                "web_invitation", invitationUrl, connectionId, playerName, playerUUID);
+            
             Request httpRequest = new Request.Builder()
                 .url("http://localhost:3001/api/acapy/accept-invitation")
-                .post(body)
+                .post(BackendProtocol.body(webWalletRequest))
                 .build();
             
-            try (Response response = httpClient.newCall(httpRequest).execute()) {
+            try (Response response = http.newCall(httpRequest).execute()) {
                 String responseBody = response.body() != null ? response.body().string() : "No response";
                 getLogger().info("Web wallet invitation response: " + response.code() + " - " + responseBody);
                 
@@ -705,282 +772,510 @@ public class SimpleSSIPlugin extends JavaPlugin {
     }
     
     private void monitorWebConnection(String connectionId, Player player) {
-        final int[] taskId = new int[1];
+        sessionEngine.start(player.getUniqueId().toString(), player, new ConnectionStage(connectionId, true));
+    }
+    
+    private void monitorWebVerificationSession(String verificationSessionId, Player player) {
+        getLogger().info("[SSIVerification] Starting verification monitoring for session: " + verificationSessionId);
+        sessionEngine.start(player.getUniqueId().toString(), player, new WebVerificationStage(verificationSessionId, false));
+    }
+    
+    private void startVerificationMonitoring(String verificationId, Player player) {
+        sessionEngine.start(player.getUniqueId().toString(), player, new WebVerificationStage(verificationId, true));
+    }
+    
+    // Waits for the wallet to accept the invitation, then sends the proof request
+    private final class ConnectionStage implements SessionStage {
+        private final String connectionId;
+        private final boolean webWallet;
+        
+        ConnectionStage(String connectionId, boolean webWallet) {
+            this.connectionId = connectionId;
+            this.webWallet = webWallet;
+        }
         
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            private boolean proofSent = false;
+        @Override
+        public String name() {
+            return webWallet ? "web-connection" : "connection";
+        }
+        
+        @Override
+        public PollingPolicy pollingPolicy() {
+            return acapyPolling(connectionPolling);
+        }
+        
+        @Override
+        public Collection<String> correlationIds() {
+            return List.of(connectionId);
+        }
+        
+        @Override
+        public long timeoutMillis() {
+            return 120_000; // 2 minutes timeout
+        }
+        
+        @Override
+        public CompletableFuture<StageResult> poll(VerificationSessionEngine.Session session) {
+            Request request = new Request.Builder()
+                .url("http://localhost:4002/v2/connections?connectionId=" + connectionId)
+                .build();
             
-            @Override
-            public void run() {
-                attempts++;
-                
-                if (attempts > 40) { // 2 minutes timeout
-                    sendMessage(player, Component.text("Web wallet connection timeout", NamedTextColor.RED));
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
-                    return;
+            return http.exchange(request, BackendProtocol.ConnectionState.class).thenCompose(reply -> {
+                if (!reply.isSuccessful() || reply.body() == null) {
+                    return StageResult.pendingFuture();
                 }
+                getLogger().info((webWallet ? "Web connection" : "Connection") + " status check #" + session.attempts());
                 
-                try {
-                    // Check connection status (same as regular /verify)
-                    Request request = new Request.Builder()
-                        .url("http://localhost:4002/v2/connections?connectionId=" + connectionId)
-                        .build();
-                    
-                    try (Response response = httpClient.newCall(request).execute()) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            String responseBody = response.body().string();
-                            getLogger().info("Web connection status check #" + attempts);
-                            
-                            JsonObject connectionData = JsonParser.parseString(responseBody).getAsJsonObject();
-                            String state = connectionData.get("state").getAsString();
-                            
-                            if ("active".equals(state) && !proofSent) {
-                                proofSent = true;
-                                getLogger().info("Web connection is active! Sending proof request...");
-                                
-                                sendMessage(player, Component.text("✓ Web wallet connected! Sending proof request...", NamedTextColor.GREEN));
-                                
-                                // Send proof request (same as regular /verify)
-                                sendProofRequest(connectionId, player);
-                                
-                                // Stop this monitoring task
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    getLogger().warning("Web connection monitoring error: " + e.getMessage());
+                if (!reply.body().isActive()) {
+                    return StageResult.pendingFuture();
                 }
+                
+                return connected(session);
+            });
+        }
+        
+        @Override
+        public CompletableFuture<StageResult> onEvent(VerificationSessionEngine.Session session, String topic, JsonObject payload) {
+            if (!AcaPyWebhookServer.TOPIC_CONNECTIONS.equals(topic)) return null;
+            
+            // ACA-Py reports both the legacy state and the RFC 23 state depending on protocol
+            boolean active = payload.has("state") && "active".equals(payload.get("state").getAsString());
+            boolean completed = payload.has("rfc23_state") && "completed".equals(payload.get("rfc23_state").getAsString());
+            if (!active && !completed) return null;
+            
+            getLogger().info((webWallet ? "Web connection" : "Connection") + " activated via webhook: " + connectionId);
+            return connected(session);
+        }
+        
+        private CompletableFuture<StageResult> connected(VerificationSessionEngine.Session session) {
+            Player player = session.player();
+            metrics.recordStage(VerificationMetrics.Stage.CONNECTION, session.stageStartedNanos());
+            if (webWallet) {
+                getLogger().info("Web connection is active! Sending proof request...");
+                sendMessage(player, Component.text("✓ Web wallet connected! Sending proof request...", NamedTextColor.GREEN));
+            } else {
+                getLogger().info("Connection is active! Sending proof request...");
+                sendMessage(player, Component.text("✓ Wallet connected! Sending proof request...", NamedTextColor.GREEN));
+                
+                // Remove QR map
+                mainThread.execute(() -> qrMaps.take(player));
             }
-        }, 60L, 60L).getTaskId(); // Check every 3 seconds
+            
+            return sendProofRequest(connectionId, player);
+        }
+        
+        @Override
+        public void onTimeout(VerificationSessionEngine.Session session) {
+            metrics.finish(session.player().getUniqueId(), VerificationMetrics.Outcome.TIMEOUT);
+            sendMessage(session.player(), Component.text(webWallet ? "Web wallet connection timeout" : "Verification timeout", NamedTextColor.RED));
+            if (!webWallet) {
+                mainThread.execute(() -> qrMaps.take(session.player()));
+            }
+        }
+        
+        // The wallet never connected to this invitation and the player has a newer one now
+        @Override
+        public void onReplaced(VerificationSessionEngine.Session session) {
+            getLogger().info("Discarding unused invitation " + connectionId + " for " + session.player().getName());
+            discardInvitation(connectionId);
+        }
     }
     
-    private void monitorWebVerificationSession(String verificationSessionId, Player player) {
-        getLogger().info("[SSIVerification] Starting verification monitoring for session: " + verificationSessionId);
-        final int[] taskId = new int[1];
+    // Shared handling of a proof exchange record, however it was looked up
+    private abstract class ProofStage implements SessionStage {
         
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            private final int maxAttempts = 100; // 5 minutes
+        @Override
+        public PollingPolicy pollingPolicy() {
+            return acapyPolling(proofPolling);
+        }
+        
+        @Override
+        public long timeoutMillis() {
+            return 180_000; // 3 minutes timeout
+        }
+        
+        @Override
+        public void onTimeout(VerificationSessionEngine.Session session) {
+            metrics.finish(session.player().getUniqueId(), VerificationMetrics.Outcome.TIMEOUT);
+            sendMessage(session.player(), Component.text("Proof verification timeout", NamedTextColor.RED));
+        }
+        
+        CompletableFuture<StageResult> handleRecord(VerificationSessionEngine.Session session, JsonObject record) {
+            Player player = session.player();
+            String state = record.get("state").getAsString();
             
-            @Override
-            public void run() {
-                attempts++;
-                getLogger().info("[SSIVerification] Monitoring attempt " + attempts + " for session: " + verificationSessionId);
-                
-                try {
-                    String monitorUrl = "http://localhost:3001/api/minecraft/verify/" + verificationSessionId;
-                    getLogger().info("[SSIVerification] Checking status at: " + monitorUrl);
-                    
-                    Request request = new Request.Builder()
-                        .url(monitorUrl)
-                        .build();
-                    
-                    try (Response response = httpClient.newCall(request).execute()) {
-                        getLogger().info("[SSIVerification] Monitoring response code: " + response.code());
-                        
-                        if (response.isSuccessful() && response.body() != null) {
-                            String responseBody = response.body().string();
-                            getLogger().info("[SSIVerification] Monitoring response body: " + responseBody);
-                            
-                            if (responseBody.contains("\"status\":\"verified\"") || responseBody.contains("\"verified\":true")) {
-                                // Verification successful with trust validation!
-                                verifiedPlayers.put(player.getName(), true);
-                                
-                                sendMessage(player, Component.text("🎉 Web wallet verification completed!", NamedTextColor.GREEN));
-                                sendMessage(player, Component.text("📜 Your DID has been validated as trusted!", NamedTextColor.YELLOW));
-                                sendMessage(player, Component.text("🔗 Bifold-compatible verification successful!", NamedTextColor.GRAY));
-                                
-                                // Give glowing effect
-                                Bukkit.getScheduler().runTask(SimpleSSIPlugin.this, () -> {
-                                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), 
-                                        "effect give " + player.getName() + " minecraft:glowing 999999 0 true");
-                                });
-                                
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                                
-                            } else if (responseBody.contains("\"status\":\"failed\"")) {
-                                // Extract failure reason
-                                String failureReason = "Verification failed - DID not trusted";
-                                try {
-                                    if (responseBody.contains("\"message\"")) {
-                                        String messageStart = "\"message\":\"";
-                                        int startIndex = responseBody.indexOf(messageStart);
-                                        if (startIndex != -1) {
-                                            startIndex += messageStart.length();
-                                            int endIndex = responseBody.indexOf("\"", startIndex);
-                                            if (endIndex != -1) {
-                                                failureReason = responseBody.substring(startIndex, endIndex);
-                                                failureReason = failureReason.replace("\\\"", "\"").replace("\\n", " ");
-                                            }
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    getLogger().warning("Failed to parse failure reason: " + e.getMessage());
-                                }
-                                
-                                sendMessage(player, Component.text("❌ " + failureReason, NamedTextColor.RED));
-                                sendMessage(player, Component.text("→ Your DID may not be in the trusted list", NamedTextColor.GRAY));
-                                
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                                
-                            } else if (responseBody.contains("\"status\":\"declined\"")) {
-                                // User declined - stop silently
-                                getLogger().info("[SSIVerification] User declined verification");
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                            } else {
-                                getLogger().info("[SSIVerification] Status still pending, continuing to monitor...");
-                            }
-                        } else {
-                            getLogger().warning("[SSIVerification] Monitoring response not successful or no body. Code: " + response.code());
-                        }
-                    }
-                } catch (Exception e) {
-                    getLogger().warning("[SSIVerification] Failed to check web verification status: " + e.getMessage());
-                    e.printStackTrace();
-                }
-                
-                // Timeout
-                if (attempts >= maxAttempts) {
-                    sendMessage(player, Component.text("⏰ Web wallet verification timeout (5 minutes)", NamedTextColor.RED));
-                    sendMessage(player, Component.text("→ Try /verify web again", NamedTextColor.GRAY));
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
-                }
+            if ("presentation-received".equals(state) || "done".equals(state)) {
+                metrics.recordStage(VerificationMetrics.Stage.PRESENTATION, session.stageStartedNanos());
+                // Proof was received - now validate DID trust
+                long started = System.nanoTime();
+                return validateProof(record, player)
+                    .whenComplete((result, error) -> metrics.recordStage(VerificationMetrics.Stage.DID_VALIDATION, started));
+            } else if ("abandoned".equals(state) || "request-rejected".equals(state)) {
+                sendMessage(player, Component.text("Verification was rejected or abandoned", NamedTextColor.RED));
+                metrics.finish(player.getUniqueId(), "request-rejected".equals(state)
+                    ? VerificationMetrics.Outcome.DECLINED : VerificationMetrics.Outcome.FAILED);
+                return StageResult.completeFuture();
             }
-        }, 60L, 60L).getTaskId();
+            
+            return waiting(session);
+        }
+        
+        @Override
+        public CompletableFuture<StageResult> onEvent(VerificationSessionEngine.Session session, String topic, JsonObject payload) {
+            if (!AcaPyWebhookServer.TOPIC_PRESENT_PROOF_V2.equals(topic) || !payload.has("state")) return null;
+            
+            // Intermediate states (request-sent...) carry nothing to act on; the wallet prompt comes from poll()
+            String state = payload.get("state").getAsString();
+            if (!isFinalState(state)) return null;
+            
+            getLogger().info("Proof " + payload.get("pres_ex_id").getAsString() + " reached state " + state);
+            return handleRecord(session, payload);
+        }
+        
+        boolean isFinalState(String state) {
+            return "presentation-received".equals(state) || "done".equals(state)
+                || "abandoned".equals(state) || "request-rejected".equals(state);
+        }
+        
+        CompletableFuture<StageResult> waiting(VerificationSessionEngine.Session session) {
+            // Still waiting - continue monitoring
+            if (session.attempts() == 1) {
+                sendMessage(session.player(), Component.text("Please check your wallet and approve the proof request!", NamedTextColor.GOLD));
+            }
+            return StageResult.pendingFuture();
+        }
     }
     
-    private void startVerificationMonitoring(String verificationId, Player player) {
-        final int[] taskId = new int[1];
+    private final class ProofRecordStage extends ProofStage {
+        private final String proofExchangeId;
+        
+        ProofRecordStage(String proofExchangeId) {
+            this.proofExchangeId = proofExchangeId;
+        }
+        
+        @Override
+        public String name() {
+            return "proof";
+        }
+        
+        @Override
+        public Collection<String> correlationIds() {
+            return List.of(proofExchangeId);
+        }
         
-        taskId[0] = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new Runnable() {
-            private int attempts = 0;
-            private final int maxAttempts = 100; // 5 minutes
+        @Override
+        public CompletableFuture<StageResult> poll(VerificationSessionEngine.Session session) {
+            // Check proof status using ACA-Py API
+            Request request = new Request.Builder()
+                .url(acapyAdminUrl + "/present-proof-2.0/records/" + proofExchangeId)
+                .build();
             
-            @Override
-            public void run() {
-                attempts++;
+            // Streamed: only state, ids, verified and cred_def_ids are kept, not the whole presentation
+            return http.stream(request, (code, body) -> code >= 200 && code < 300 ? ProofRecordReader.readRecord(body) : null)
+                .thenCompose(record -> {
+                    if (record == null || !record.has("state")) {
+                        return StageResult.pendingFuture();
+                    }
+                    getLogger().info("Proof status check #" + session.attempts() + ": " + record);
+                    
+                    return handleRecord(session, record);
+                });
+        }
+    }
+    
+    private final class ProofByConnectionStage extends ProofStage {
+        private final String connectionId;
+        
+        ProofByConnectionStage(String connectionId) {
+            this.connectionId = connectionId;
+        }
+        
+        @Override
+        public String name() {
+            return "proof-by-connection";
+        }
+        
+        @Override
+        public Collection<String> correlationIds() {
+            return List.of(connectionId);
+        }
+        
+        @Override
+        public CompletableFuture<StageResult> poll(VerificationSessionEngine.Session session) {
+            // The shared poller looks the record up for every waiting connection at once
+            // and pushes finished ones back through onEvent
+            proofRecordPoller.watch(connectionId, session, this);
+            return waiting(session);
+        }
+    }
+    
+    // Polls the web wallet for the outcome of a browser-based verification
+    private final class WebVerificationStage implements SessionStage {
+        private final String verificationSessionId;
+        private final boolean acapyTrustMessages;
+        
+        WebVerificationStage(String verificationSessionId, boolean acapyTrustMessages) {
+            this.verificationSessionId = verificationSessionId;
+            this.acapyTrustMessages = acapyTrustMessages;
+        }
+        
+        @Override
+        public String name() {
+            return "web-verification";
+        }
+        
+        @Override
+        public PollingPolicy pollingPolicy() {
+            return webVerificationPolling;
+        }
+        
+        @Override
+        public long timeoutMillis() {
+            return 300_000; // 5 minutes
+        }
+        
+        @Override
+        public CompletableFuture<StageResult> poll(VerificationSessionEngine.Session session) {
+            Player player = session.player();
+            String monitorUrl = "http://localhost:3001/api/minecraft/verify/" + verificationSessionId;
+            if (!acapyTrustMessages) {
+                getLogger().info("[SSIVerification] Monitoring attempt " + session.attempts() + " for session: " + verificationSessionId);
+            }
+            
+            Request request = new Request.Builder()
+                .url(monitorUrl)
+                .build();
+            
+            return http.exchange(request, BackendProtocol.VerificationStatus.class).thenApply(reply -> {
+                if (!reply.isSuccessful() || reply.body() == null) {
+                    if (!acapyTrustMessages) {
+                        getLogger().warning("[SSIVerification] Monitoring response not successful or no body. Code: " + reply.code());
+                    }
+                    return StageResult.pending();
+                }
                 
-                try {
-                    Request request = new Request.Builder()
-                        .url("http://localhost:3001/api/minecraft/verify/" + verificationId)
-                        .build();
+                BackendProtocol.VerificationStatus status = reply.body();
+                if (!acapyTrustMessages) {
+                    getLogger().info("[SSIVerification] Monitoring response: " + status);
+                }
+                
+                if (status.isVerified()) {
+                    // Verification successful with trust validation!
+                    verifiedPlayers.markVerified(player.getUniqueId(), player.getName(), null, VerifiedPlayer.TIER_WALLET);
+                    metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.VERIFIED);
+                    
+                    if (acapyTrustMessages) {
+                        sendMessage(player, Component.text("🎉 Web wallet verification completed with ACA-Py trust validation!", NamedTextColor.GREEN));
+                        sendMessage(player, Component.text("📜 Your DID has been verified as trusted!", NamedTextColor.YELLOW));
+                        sendMessage(player, Component.text("→ You now have verified player benefits", NamedTextColor.GRAY));
+                    } else {
+                        sendMessage(player, Component.text("🎉 Web wallet verification completed!", NamedTextColor.GREEN));
+                        sendMessage(player, Component.text("📜 Your DID has been validated as trusted!", NamedTextColor.YELLOW));
+                        sendMessage(player, Component.text("🔗 Bifold-compatible verification successful!", NamedTextColor.GRAY));
+                    }
+                    
+                    giveGlowingEffect(player);
+                    return StageResult.complete();
+                    
+                } else if (status.isFailed()) {
+                    metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.FAILED);
+                    String failureReason = status.message() != null ? status.message().replace('\n', ' ')
+                        : acapyTrustMessages ? "Verification failed - DID not trusted by ACA-Py" : "Verification failed - DID not trusted";
+                    
+                    sendMessage(player, Component.text("❌ " + failureReason, NamedTextColor.RED));
+                    sendMessage(player, Component.text("→ Your DID may not be in the trusted list", NamedTextColor.GRAY));
+                    if (acapyTrustMessages) {
+                        sendMessage(player, Component.text("→ Check admin interface at localhost:3000/admin", NamedTextColor.GRAY));
+                    }
+                    return StageResult.complete();
                     
-                    try (Response response = httpClient.newCall(request).execute()) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            String responseBody = response.body().string();
-                            
-                            if (responseBody.contains("\"status\":\"verified\"") || responseBody.contains("\"verified\":true")) {
-                                // Verification successful with ACA-Py trust validation!
-                                verifiedPlayers.put(player.getName(), true);
-                                
-                                sendMessage(player, Component.text("🎉 Web wallet verification completed with ACA-Py trust validation!", NamedTextColor.GREEN));
-                                sendMessage(player, Component.text("📜 Your DID has been verified as trusted!", NamedTextColor.YELLOW));
-                                sendMessage(player, Component.text("→ You now have verified player benefits", NamedTextColor.GRAY));
-                                
-                                // Give glowing effect
-                                Bukkit.getScheduler().runTask(SimpleSSIPlugin.this, () -> {
-                                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), 
-                                        "effect give " + player.getName() + " minecraft:glowing 999999 0 true");
-                                });
-                                
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                                
-                            } else if (responseBody.contains("\"status\":\"failed\"")) {
-                                // Extract failure reason
-                                String failureReason = "Verification failed - DID not trusted by ACA-Py";
-                                try {
-                                    if (responseBody.contains("\"message\"")) {
-                                        String messageStart = "\"message\":\"";
-                                        int startIndex = responseBody.indexOf(messageStart);
-                                        if (startIndex != -1) {
-                                            startIndex += messageStart.length();
-                                            int endIndex = responseBody.indexOf("\"", startIndex);
-                                            if (endIndex != -1) {
-                                                failureReason = responseBody.substring(startIndex, endIndex);
-                                                failureReason = failureReason.replace("\\\"", "\"").replace("\\n", " ");
-                                            }
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    getLogger().warning("Failed to parse failure reason: " + e.getMessage());
-                                }
-                                
-                                sendMessage(player, Component.text("❌ " + failureReason, NamedTextColor.RED));
-                                sendMessage(player, Component.text("→ Your DID may not be in the trusted list", NamedTextColor.GRAY));
-                                sendMessage(player, Component.text("→ Check admin interface at localhost:3000/admin", NamedTextColor.GRAY));
-                                
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                                
-                            } else if (responseBody.contains("\"status\":\"declined\"")) {
-                                // User declined - stop silently
-                                Bukkit.getScheduler().cancelTask(taskId[0]);
-                                return;
-                            }
-                        }
+                } else if (status.isDeclined()) {
+                    metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.DECLINED);
+                    // User declined - stop silently
+                    if (!acapyTrustMessages) {
+                        getLogger().info("[SSIVerification] User declined verification");
                     }
-                } catch (Exception e) {
-                    getLogger().warning("Failed to check web verification status: " + e.getMessage());
+                    return StageResult.complete();
                 }
                 
-                // Timeout
-                if (attempts >= maxAttempts) {
-                    sendMessage(player, Component.text("⏰ Web wallet verification timeout (5 minutes)", NamedTextColor.RED));
-                    sendMessage(player, Component.text("→ Try /verify web again", NamedTextColor.GRAY));
-                    sendMessage(player, Component.text("→ Or use /verify for mobile wallet", NamedTextColor.GRAY));
-                    Bukkit.getScheduler().cancelTask(taskId[0]);
+                if (!acapyTrustMessages) {
+                    getLogger().info("[SSIVerification] Status still pending, continuing to monitor...");
                 }
+                return StageResult.pending();
+            });
+        }
+        
+        @Override
+        public void onTimeout(VerificationSessionEngine.Session session) {
+            Player player = session.player();
+            metrics.finish(player.getUniqueId(), VerificationMetrics.Outcome.TIMEOUT);
+            sendMessage(player, Component.text("⏰ Web wallet verification timeout (5 minutes)", NamedTextColor.RED));
+            sendMessage(player, Component.text("→ Try /verify web again", NamedTextColor.GRAY));
+            if (acapyTrustMessages) {
+                sendMessage(player, Component.text("→ Or use /verify for mobile wallet", NamedTextColor.GRAY));
             }
-        }, 60L, 60L).getTaskId();
+        }
     }
     
-    private void removeQRMaps(Player player) {
-        for (int i = 0; i < player.getInventory().getSize(); i++) {
-            ItemStack item = player.getInventory().getItem(i);
-            if (item != null && item.getType() == Material.FILLED_MAP) {
-                if (item.hasItemMeta() && item.getItemMeta().hasDisplayName() &&
-                    item.getItemMeta().getDisplayName().contains("SSI Verification")) {
-                    player.getInventory().setItem(i, null);
-                    break;
-                }
-            }
+    private void showStats(CommandSender sender) {
+        VerificationMetrics.Summary summary = metrics.summary();
+        sender.sendMessage(Component.text("=== Verification stats ===", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Verified " + summary.outcome(VerificationMetrics.Outcome.VERIFIED)
+            + ", failed " + summary.outcome(VerificationMetrics.Outcome.FAILED)
+            + ", declined " + summary.outcome(VerificationMetrics.Outcome.DECLINED)
+            + ", timed out " + summary.outcome(VerificationMetrics.Outcome.TIMEOUT), NamedTextColor.WHITE));
+        for (VerificationMetrics.GaugeValue gauge : summary.gauges()) {
+            sender.sendMessage(Component.text(gauge.name() + ": " + gauge.value(), NamedTextColor.GRAY));
+        }
+        sender.sendMessage(Component.text(latencyLine("time to verified", summary.timeToVerified().latency()), NamedTextColor.WHITE));
+        for (VerificationMetrics.StageSummary stage : summary.stages()) {
+            if (stage.latency().count() == 0) continue;
+            sender.sendMessage(Component.text("  " + latencyLine(stage.name(), stage.latency()), NamedTextColor.GRAY));
+        }
+        int shown = 0;
+        for (VerificationMetrics.EndpointSummary endpoint : summary.endpoints()) {
+            if (shown++ == 8) break;
+            sender.sendMessage(Component.text("  " + latencyLine(endpoint.method() + " " + endpoint.backend() + endpoint.route(),
+                endpoint.latency()) + ", " + endpoint.failures() + " failed", NamedTextColor.DARK_GRAY));
+        }
+        if (metricsServer == null) {
+            sender.sendMessage(Component.text("Prometheus endpoint is off (metrics.enabled)", NamedTextColor.GRAY));
         }
     }
     
+    private static String latencyLine(String name, LatencyHistogram.Snapshot latency) {
+        return name + ": n=" + latency.count() + ", p50 " + millis(latency.percentileMicros(0.50))
+            + ", p90 " + millis(latency.percentileMicros(0.90)) + ", p99 " + millis(latency.percentileMicros(0.99))
+            + ", max " + millis(latency.maxMicros());
+    }
+    
+    private static String millis(long micros) {
+        return String.format("%.1f ms", micros / 1000.0);
+    }
+    
+    private static String timingLine(TickTimings.CategoryStats stats) {
+        return stats.name() + ": p50 " + stats.p50Micros() + " µs, p99 " + stats.p99Micros() + " µs, max " + stats.maxMicros() + " µs";
+    }
+    
     private void sendMessage(Player player, Component message) {
-        Bukkit.getScheduler().runTask(this, () -> player.sendMessage(message));
+        mainThread.sendMessage(player, message);
+    }
+    
+    private boolean handleAdmin(CommandSender sender, String[] args) {
+        if (args.length >= 2 && "cache".equalsIgnoreCase(args[0]) && "clear".equalsIgnoreCase(args[1])) {
+            int cleared = validationCache.invalidateAll();
+            sender.sendMessage(Component.text("Cleared " + cleared + " cached validation results", NamedTextColor.GREEN));
+            getLogger().info(sender.getName() + " cleared the validation result cache (" + cleared + " entries)");
+            return true;
+        }
+        if (args.length >= 2 && "trust".equalsIgnoreCase(args[0]) && "reload".equalsIgnoreCase(args[1])) {
+            if (trustedIssuers == null) {
+                sender.sendMessage(Component.text("No local trusted-issuer list configured (trust.trusted-dids-file)", NamedTextColor.YELLOW));
+            } else if (trustedIssuers.reload()) {
+                sender.sendMessage(Component.text("Reloaded " + trustedIssuers.size() + " trusted issuer DIDs", NamedTextColor.GREEN));
+            } else {
+                sender.sendMessage(Component.text("Could not read " + trustedIssuers.file() + ", kept the previous list", NamedTextColor.RED));
+            }
+            return true;
+        }
+        if (args.length >= 1 && "qr".equalsIgnoreCase(args[0])) {
+            QrEncodingPipeline.Stats stats = qrPipeline.stats();
+            sender.sendMessage(Component.text("=== QR pipeline ===", NamedTextColor.GOLD));
+            sender.sendMessage(Component.text("Queue depth: " + stats.queueDepth() + ", encoding: " + stats.active(), NamedTextColor.WHITE));
+            sender.sendMessage(Component.text("Completed: " + stats.completed() + ", failed: " + stats.failed() + ", rejected: " + stats.rejected(), NamedTextColor.WHITE));
+            sender.sendMessage(Component.text("Latency last/mean/max: " + stats.lastLatencyMicros() + "/" + stats.meanLatencyMicros()
+                + "/" + stats.maxLatencyMicros() + " µs", NamedTextColor.WHITE));
+            sender.sendMessage(Component.text("Map IDs in pool: " + qrMaps.poolSize() + ", QR items out: " + qrMaps.issuedCount(), NamedTextColor.GRAY));
+            InvitationPool.Stats invitations = invitationPool.stats();
+            sender.sendMessage(Component.text("Invitations ready: " + invitations.ready() + ", creating: " + invitations.inFlight()
+                + ", hits/misses: " + invitations.hits() + "/" + invitations.misses() + ", expired: " + invitations.expired(), NamedTextColor.GRAY));
+            return true;
+        }
+        if (args.length >= 1 && "executors".equalsIgnoreCase(args[0])) {
+            sender.sendMessage(Component.text("=== Executors ===", NamedTextColor.GOLD));
+            for (BoundedExecutor.Stats stats : List.of(networkExecutor.stats(), qrExecutor.stats(), verifiedPlayers.stats())) {
+                sender.sendMessage(Component.text(stats.name() + ": " + stats.active() + "/" + stats.threads() + " busy, "
+                    + stats.queued() + "/" + stats.queueCapacity() + " queued", NamedTextColor.WHITE));
+                sender.sendMessage(Component.text("  completed " + stats.completed() + ", rejected " + stats.rejected()
+                    + ", max wait " + stats.maxQueueWaitMicros() + " µs, mean run " + stats.meanRunMicros() + " µs", NamedTextColor.GRAY));
+            }
+            MainThreadQueue.Stats main = mainThread.stats();
+            sender.sendMessage(Component.text("Main-thread queue: " + main.backlog() + " waiting (max " + main.maxBacklog()
+                + "), " + main.executed() + "/" + main.queued() + " run, " + main.coalesced() + " duplicate messages dropped, "
+                + main.carriedOver() + " ticks over the " + main.budgetMicros() + " µs budget", NamedTextColor.WHITE));
+            HttpTransport.Stats transport = http.stats();
+            sender.sendMessage(Component.text("HTTP dispatcher: " + transport.runningCalls() + " running, " + transport.queuedCalls()
+                + " queued, " + transport.connections() + " connections (" + transport.idleConnections() + " idle) to "
+                + transport.backends() + " backends", NamedTextColor.GRAY));
+            sender.sendMessage(Component.text("Shared GETs: " + transport.sharedReads() + " requested, "
+                + transport.coalescedReads() + " answered by a call already in flight", NamedTextColor.GRAY));
+            for (HttpTransport.BackendStats backend : http.backendStats()) {
+                sender.sendMessage(Component.text("  " + backend.origin() + ": circuit " + backend.state() + ", "
+                    + backend.inFlight() + "/" + backend.maxConcurrent() + " in flight, turned away "
+                    + backend.breakerRejections() + " (circuit) + " + backend.bulkheadRejections() + " (bulkhead)",
+                    backend.state() == CircuitBreaker.State.CLOSED ? NamedTextColor.GRAY : NamedTextColor.RED));
+            }
+            return true;
+        }
+        if (args.length >= 1 && "timings".equalsIgnoreCase(args[0])) {
+            TickTimings.Report report = timings.report();
+            sender.sendMessage(Component.text("=== Main-thread timings (last " + report.windowTicks() + " ticks) ===", NamedTextColor.GOLD));
+            sender.sendMessage(Component.text(timingLine(report.total()) + ", budget " + report.tickBudgetMicros() + " µs",
+                NamedTextColor.WHITE));
+            for (TickTimings.CategoryStats category : report.categories()) {
+                if (category.activeTicks() == 0) continue;
+                sender.sendMessage(Component.text("  " + timingLine(category) + " in " + category.activeTicks() + " ticks",
+                    NamedTextColor.GRAY));
+            }
+            sender.sendMessage(Component.text(report.overBudgetTicks() + " of " + report.ticks() + " ticks over budget since start",
+                report.overBudgetTicks() == 0 ? NamedTextColor.GRAY : NamedTextColor.YELLOW));
+            return true;
+        }
+        return false; // Bukkit prints the usage from plugin.yml
     }
     
     private void handleSSIVerify(Player sender, String targetPlayerName) {
         sender.sendMessage(Component.text("=== Verification Status ===", NamedTextColor.GOLD));
         sender.sendMessage(Component.text("Player: " + targetPlayerName, NamedTextColor.WHITE));
         
-        if (verifiedPlayers.getOrDefault(targetPlayerName, false)) {
-            sender.sendMessage(Component.text("Status: ✓ VERIFIED", NamedTextColor.GREEN));
+        CompletableFuture<Optional<VerifiedPlayer>> record;
+        Player target = Bukkit.getPlayerExact(targetPlayerName);
+        if (target != null) {
+            // Online players are answered from the in-memory set; only verified ones need the stored details
+            if (!verifiedPlayers.isVerified(target.getUniqueId())) {
+                sender.sendMessage(Component.text("Status: ✗ NOT VERIFIED", NamedTextColor.RED));
+                return;
+            }
+            record = verifiedPlayers.lookup(target.getUniqueId());
         } else {
-            sender.sendMessage(Component.text("Status: ✗ NOT VERIFIED", NamedTextColor.RED));
+            record = verifiedPlayers.lookupByName(targetPlayerName);
         }
+        
+        record.whenComplete((found, error) -> {
+            if (error != null) {
+                getLogger().warning("Verification lookup failed for " + targetPlayerName + ": " + error.getMessage());
+                sendMessage(sender, Component.text("Status: unknown (storage unavailable)", NamedTextColor.YELLOW));
+            } else if (found.isPresent()) {
+                sendMessage(sender, Component.text("Status: ✓ VERIFIED", NamedTextColor.GREEN));
+                sendMessage(sender, Component.text("Since: " + Instant.ofEpochMilli(found.get().verifiedAt()), NamedTextColor.GRAY));
+                if (found.get().issuerDid() != null) {
+                    sendMessage(sender, Component.text("Issuer: " + found.get().issuerDid(), NamedTextColor.GRAY));
+                }
+            } else {
+                sendMessage(sender, Component.text("Status: ✗ NOT VERIFIED", NamedTextColor.RED));
+            }
+        });
     }
     
     private void handleReset(Player player) {
         String playerName = player.getName();
         
-        // Check if player is currently verified
-        if (!verifiedPlayers.getOrDefault(playerName, false)) {
+        // Remove verification status (if the player is currently verified)
+        if (!verifiedPlayers.revoke(player.getUniqueId())) {
             player.sendMessage(Component.text("⚠ You are not currently verified!", NamedTextColor.YELLOW));
             return;
         }
         
-        // Remove verification status
-        verifiedPlayers.remove(playerName);
-        
         // Remove glowing effect if present
         player.removePotionEffect(PotionEffectType.GLOWING);
         
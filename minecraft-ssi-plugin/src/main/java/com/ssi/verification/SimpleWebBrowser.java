@@ -13,23 +13,26 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.geom.RoundRectangle2D;
 import java.io.IOException;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 public class SimpleWebBrowser {
     
     private final JavaPlugin plugin;
     private final Player player;
     private final String verificationSessionId;
-    private final OkHttpClient httpClient;
+    private final HttpTransport httpClient;
+    private final Executor executor;
     private JFrame browserFrame;
     private JTextPane contentPane;
     private Timer refreshTimer;
     
-    public SimpleWebBrowser(JavaPlugin plugin, Player player, String verificationSessionId, OkHttpClient httpClient) {
+    public SimpleWebBrowser(JavaPlugin plugin, Player player, String verificationSessionId, HttpTransport httpClient, Executor executor) {
         this.plugin = plugin;
         this.player = player;
         this.verificationSessionId = verificationSessionId;
         this.httpClient = httpClient;
+        this.executor = executor;
     }
     
     public void openWebWallet() {
@@ -158,26 +161,21 @@ public class SimpleWebBrowser {
     }
     
     private void loadContent() {
-        CompletableFuture.runAsync(() -> {
+        inBackground(() -> {
             try {
-                // Fetch notifications from web wallet
-                Request request = new Request.Builder()
-                    .url("http://localhost:3001/api/notifications")
-                    .build();
-                
-                try (Response response = httpClient.newCall(request).execute()) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        String responseBody = response.body().string();
-                        
-                        SwingUtilities.invokeLater(() -> {
-                            displayNotifications(responseBody);
-                        });
-                        
-                    } else {
-                        SwingUtilities.invokeLater(() -> {
-                            displayError("Failed to connect to web wallet");
-                        });
-                    }
+                // Fetch notifications from web wallet; players opening the wallet together share one GET
+                HttpTransport.Reply reply = httpClient.getShared("http://localhost:3001/api/notifications").join();
+                if (reply.isSuccessful() && reply.body() != null) {
+                    String responseBody = reply.body();
+                    
+                    SwingUtilities.invokeLater(() -> {
+                        displayNotifications(responseBody);
+                    });
+                    
+                } else {
+                    SwingUtilities.invokeLater(() -> {
+                        displayError("Failed to connect to web wallet");
+                    });
                 }
                 
             } catch (Exception e) {
@@ -268,7 +266,7 @@ public class SimpleWebBrowser {
     }
     
     private void shareCredential() {
-        CompletableFuture.runAsync(() -> {
+        inBackground(() -> {
             try {
                 plugin.getLogger().info("[SimpleWebBrowser] Sharing credential for verification session: " + verificationSessionId);
                 
@@ -327,21 +325,16 @@ public class SimpleWebBrowser {
     
     private String findNotificationId() {
         try {
-            Request request = new Request.Builder()
-                .url("http://localhost:3001/api/notifications")
-                .build();
-            
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String responseBody = response.body().string();
-                    // Simple parsing to find notification with our verification session ID
-                    if (responseBody.contains("\"id\":\"" + verificationSessionId + "\"")) {
-                        return verificationSessionId;
-                    }
-                    // Also check if the verification session ID appears as notification ID format
-                    if (responseBody.contains("\"id\":\"notification-" + verificationSessionId.replace("verification-", "") + "\"")) {
-                        return "notification-" + verificationSessionId.replace("verification-", "");
-                    }
+            HttpTransport.Reply reply = httpClient.getShared("http://localhost:3001/api/notifications").join();
+            if (reply.isSuccessful() && reply.body() != null) {
+                String responseBody = reply.body();
+                // Simple parsing to find notification with our verification session ID
+                if (responseBody.contains("\"id\":\"" + verificationSessionId + "\"")) {
+                    return verificationSessionId;
+                }
+                // Also check if the verification session ID appears as notification ID format
+                if (responseBody.contains("\"id\":\"notification-" + verificationSessionId.replace("verification-", "") + "\"")) {
+                    return "notification-" + verificationSessionId.replace("verification-", "");
                 }
             }
         } catch (Exception e) {
@@ -351,7 +344,7 @@ public class SimpleWebBrowser {
     }
     
     private void declineRequest() {
-        CompletableFuture.runAsync(() -> {
+        inBackground(() -> {
             try {
                 plugin.getLogger().info("[SimpleWebBrowser] Declining verification session: " + verificationSessionId);
                 
@@ -492,4 +485,14 @@ public class SimpleWebBrowser {
     public boolean isOpen() {
         return browserFrame != null && browserFrame.isVisible();
     }
+    
+    // Wallet calls block, so they run on the plugin's network executor, never on the Swing thread
+    private void inBackground(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().warning("[SimpleWebBrowser] Network executor busy: " + e.getMessage());
+            JOptionPane.showMessageDialog(browserFrame, "Wallet is busy, please try again in a moment");
+        }
+    }
 }
\ No newline at end of file
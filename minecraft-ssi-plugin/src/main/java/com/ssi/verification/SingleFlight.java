@@ -0,0 +1,51 @@
+package com.ssi.verification;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Collapses concurrent identical reads: while a call for a key is in flight, every other caller
+// for that key gets the same result instead of starting its own. Nothing is cached; the key is
+// forgotten as soon as the call completes, so the next read goes to the backend again. Callers
+// receive copies, so one of them cancelling or completing its future can't affect the others.
+public class SingleFlight<K, V> {
+    
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    
+    public CompletableFuture<V> run(K key, Supplier<CompletableFuture<V>> call) {
+        calls.increment();
+        CompletableFuture<V> started = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, started);
+        if (running != null) {
+            coalesced.increment();
+            return running.copy();
+        }
+        
+        try {
+            call.get().whenComplete((value, error) -> {
+                inFlight.remove(key, started);
+                if (error != null) {
+                    started.completeExceptionally(error);
+                } else {
+                    started.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, started);
+            started.completeExceptionally(e);
+        }
+        return started.copy();
+    }
+    
+    // Reads requested, and how many of them rode along on another caller's call
+    public long calls() {
+        return calls.sum();
+    }
+    
+    public long coalesced() {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,143 @@
+package com.ssi.verification;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Embedded SQLite table, one row per verified player. Uses the JDBC driver that ships with the server.
+public class SqliteVerifiedPlayerStore implements VerifiedPlayerStore {
+    
+    private static final String COLUMNS = "uuid, name, verified_at, issuer_did, tier";
+    
+    private final File file;
+    private final Connection connection;
+    
+    public SqliteVerifiedPlayerStore(File file) throws IOException {
+        this.file = file;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                // WAL keeps batch commits cheap and never blocks the startup read
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("CREATE TABLE IF NOT EXISTS verified_players ("
+                    + "uuid TEXT PRIMARY KEY, "
+                    + "name TEXT NOT NULL, "
+                    + "verified_at INTEGER NOT NULL, "
+                    + "issuer_did TEXT, "
+                    + "tier INTEGER NOT NULL DEFAULT 0)");
+                statement.execute("CREATE INDEX IF NOT EXISTS verified_players_name ON verified_players (name COLLATE NOCASE)");
+            }
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("Could not open " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void loadAll(Consumer<VerifiedPlayer> sink) throws IOException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT " + COLUMNS + " FROM verified_players")) {
+            while (rows.next()) {
+                sink.accept(read(rows));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not read verified players: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public Optional<VerifiedPlayer> find(UUID uuid) throws IOException {
+        return queryOne("SELECT " + COLUMNS + " FROM verified_players WHERE uuid = ?", uuid.toString());
+    }
+    
+    @Override
+    public Optional<VerifiedPlayer> findByName(String name) throws IOException {
+        return queryOne("SELECT " + COLUMNS + " FROM verified_players WHERE name = ? COLLATE NOCASE "
+            + "ORDER BY verified_at DESC LIMIT 1", name);
+    }
+    
+    private Optional<VerifiedPlayer> queryOne(String sql, String parameter) throws IOException {
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            query.setString(1, parameter);
+            try (ResultSet rows = query.executeQuery()) {
+                return rows.next() ? Optional.of(read(rows)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not look up verified player: " + e.getMessage(), e);
+        }
+    }
+    
+    private static VerifiedPlayer read(ResultSet rows) throws SQLException {
+        return new VerifiedPlayer(
+            UUID.fromString(rows.getString(1)),
+            rows.getString(2),
+            rows.getLong(3),
+            rows.getString(4),
+            rows.getInt(5));
+    }
+    
+    @Override
+    public void writeBatch(Collection<Change> changes) throws IOException {
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsert = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO verified_players (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM verified_players WHERE uuid = ?")) {
+                for (Change change : changes) {
+                    VerifiedPlayer record = change.record();
+                    if (record == null) {
+                        delete.setString(1, change.uuid().toString());
+                        delete.addBatch();
+                    } else {
+                        upsert.setString(1, record.uuid().toString());
+                        upsert.setString(2, record.name());
+                        upsert.setLong(3, record.verifiedAt());
+                        if (record.issuerDid() != null) {
+                            upsert.setString(4, record.issuerDid());
+                        } else {
+                            upsert.setNull(4, Types.VARCHAR);
+                        }
+                        upsert.setInt(5, record.tier());
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+                delete.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not write verified players: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public String describe() {
+        return "SQLite " + file.getName();
+    }
+}
@@ -0,0 +1,48 @@
+package com.ssi.verification;
+
+import java.util.concurrent.CompletableFuture;
+
+// Outcome of a single stage poll: keep waiting, move on to another stage, or finish the session
+public final class StageResult {
+    
+    private static final StageResult PENDING = new StageResult(null, false);
+    private static final StageResult COMPLETE = new StageResult(null, true);
+    private static final CompletableFuture<StageResult> PENDING_FUTURE = CompletableFuture.completedFuture(PENDING);
+    private static final CompletableFuture<StageResult> COMPLETE_FUTURE = CompletableFuture.completedFuture(COMPLETE);
+    
+    private final SessionStage next;
+    private final boolean complete;
+    
+    private StageResult(SessionStage next, boolean complete) {
+        this.next = next;
+        this.complete = complete;
+    }
+    
+    public static StageResult pending() {
+        return PENDING;
+    }
+    
+    public static StageResult complete() {
+        return COMPLETE;
+    }
+    
+    public static StageResult advance(SessionStage next) {
+        return new StageResult(next, false);
+    }
+    
+    public static CompletableFuture<StageResult> pendingFuture() {
+        return PENDING_FUTURE;
+    }
+    
+    public static CompletableFuture<StageResult> completeFuture() {
+        return COMPLETE_FUTURE;
+    }
+    
+    public boolean isComplete() {
+        return complete;
+    }
+    
+    public SessionStage next() {
+        return next;
+    }
+}
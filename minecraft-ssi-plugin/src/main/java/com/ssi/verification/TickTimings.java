@@ -0,0 +1,214 @@
+package com.ssi.verification;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Wall time this plugin spends on the server thread, per tick and per kind of work. Work is wrapped
+// in enter()/exit(); nested sections are exclusive, so a QR map handed out from a queued task counts
+// as inventory and not also as queue. A repeating task closes each tick: the tick's totals go into a
+// rolling window (p50/p99/max over the ticks in which a category ran) and are checked against the
+// tick budget and any per-category budgets. Calls from other threads are ignored, and nothing here
+// allocates once started. Read with /ssi timings.
+public class TickTimings {
+    
+    public enum Category {
+        QUEUE("queue"), MAP_RENDER("map-render"), INVENTORY("inventory"), EFFECTS("effects"), GUI("gui"),
+        COMMANDS("commands");
+        
+        private final String key;
+        
+        Category(String key) {
+            this.key = key;
+        }
+        
+        public String key() {
+            return key;
+        }
+    }
+    
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int MAX_DEPTH = 16;
+    
+    private final Plugin plugin;
+    private final Logger logger;
+    private final Settings settings;
+    private final long[] tickNanos = new long[CATEGORIES.length];
+    private final long[] categoryBudgetNanos = new long[CATEGORIES.length];
+    private final long[][] history;
+    private final long[] totalHistory;
+    private final Category[] stack = new Category[MAX_DEPTH];
+    private int depth;
+    private long sliceStart;
+    private int cursor;
+    private int filled;
+    private long ticks;
+    private long overBudgetTicks;
+    private long lastWarnNanos;
+    private Thread serverThread;
+    private BukkitTask tickTask;
+    
+    public TickTimings(Plugin plugin, Logger logger, Settings settings) {
+        this.plugin = plugin;
+        this.logger = logger;
+        this.settings = settings;
+        this.history = new long[CATEGORIES.length][settings.windowTicks()];
+        this.totalHistory = new long[settings.windowTicks()];
+        for (Category category : CATEGORIES) {
+            categoryBudgetNanos[category.ordinal()] = settings.categoryBudgetNanos().getOrDefault(category, Long.MAX_VALUE);
+        }
+    }
+    
+    // Main thread
+    public void start() {
+        serverThread = Thread.currentThread();
+        lastWarnNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.warnIntervalMillis());
+        tickTask = Bukkit.getScheduler().runTaskTimer(plugin, this::endTick, 1L, 1L);
+    }
+    
+    public void stop() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+    }
+    
+    public void enter(Category category) {
+        if (Thread.currentThread() != serverThread) return;
+        long now = System.nanoTime();
+        if (depth > 0) {
+            tickNanos[stack[Math.min(depth, MAX_DEPTH) - 1].ordinal()] += now - sliceStart;
+        }
+        if (depth < MAX_DEPTH) stack[depth] = category;
+        depth++;
+        sliceStart = now;
+    }
+    
+    public void exit() {
+        if (Thread.currentThread() != serverThread || depth == 0) return;
+        long now = System.nanoTime();
+        tickNanos[stack[Math.min(depth, MAX_DEPTH) - 1].ordinal()] += now - sliceStart;
+        depth--;
+        sliceStart = now;
+    }
+    
+    public void run(Category category, Runnable work) {
+        enter(category);
+        try {
+            work.run();
+        } finally {
+            exit();
+        }
+    }
+    
+    private void endTick() {
+        long total = 0;
+        boolean categoryOver = false;
+        for (Category category : CATEGORIES) {
+            long nanos = tickNanos[category.ordinal()];
+            history[category.ordinal()][cursor] = nanos;
+            total += nanos;
+            categoryOver |= nanos > categoryBudgetNanos[category.ordinal()];
+        }
+        totalHistory[cursor] = total;
+        cursor = (cursor + 1) % totalHistory.length;
+        filled = Math.min(filled + 1, totalHistory.length);
+        ticks++;
+        
+        if (total > settings.tickBudgetNanos() || categoryOver) {
+            overBudgetTicks++;
+            long now = System.nanoTime();
+            if (now - lastWarnNanos >= TimeUnit.MILLISECONDS.toNanos(settings.warnIntervalMillis())) {
+                lastWarnNanos = now;
+                logger.warning("Main-thread work over budget: " + micros(total) + " µs this tick (tick budget "
+                    + micros(settings.tickBudgetNanos()) + " µs; " + breakdown() + "), " + overBudgetTicks
+                    + " ticks over budget so far. Details: /ssi timings");
+            }
+        }
+        Arrays.fill(tickNanos, 0);
+    }
+    
+    private String breakdown() {
+        StringBuilder text = new StringBuilder();
+        for (Category category : CATEGORIES) {
+            long nanos = tickNanos[category.ordinal()];
+            if (nanos == 0) continue;
+            if (text.length() > 0) text.append(", ");
+            text.append(category.key()).append(' ').append(micros(nanos)).append(" µs");
+        }
+        return text.toString();
+    }
+    
+    // Percentiles over the window; sorts copies, so only meant for the command
+    public Report report() {
+        List<CategoryStats> categories = new ArrayList<>();
+        for (Category category : CATEGORIES) {
+            categories.add(summarise(category.key(), history[category.ordinal()], true));
+        }
+        return new Report(summarise("total", totalHistory, false), categories, filled, ticks, overBudgetTicks,
+            micros(settings.tickBudgetNanos()));
+    }
+    
+    private CategoryStats summarise(String name, long[] samples, boolean activeOnly) {
+        long[] values = new long[filled];
+        int count = 0;
+        for (int i = 0; i < filled; i++) {
+            if (!activeOnly || samples[i] > 0) values[count++] = samples[i];
+        }
+        if (count == 0) return new CategoryStats(name, 0, 0, 0, 0);
+        Arrays.sort(values, 0, count);
+        return new CategoryStats(name, count,
+            micros(values[(int) Math.ceil(count * 0.50) - 1]),
+            micros(values[(int) Math.ceil(count * 0.99) - 1]),
+            micros(values[count - 1]));
+    }
+    
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+    
+    // activeTicks: ticks in the window in which the category ran (every tick for the total)
+    public record CategoryStats(String name, int activeTicks, long p50Micros, long p99Micros, long maxMicros) {
+    }
+    
+    public record Report(CategoryStats total, List<CategoryStats> categories, int windowTicks, long ticks,
+                         long overBudgetTicks, long tickBudgetMicros) {
+    }
+    
+    public record Settings(int windowTicks, long tickBudgetNanos, Map<Category, Long> categoryBudgetNanos,
+                           long warnIntervalMillis) {
+        
+        public static final Settings DEFAULTS = new Settings(1200, TimeUnit.MILLISECONDS.toNanos(5), Map.of(), 60_000);
+        
+        public static Settings fromConfig(ConfigurationSection section) {
+            if (section == null) return DEFAULTS;
+            Map<Category, Long> categoryBudgets = new EnumMap<>(Category.class);
+            ConfigurationSection budgets = section.getConfigurationSection("category-budgets-ms");
+            if (budgets != null) {
+                for (Category category : CATEGORIES) {
+                    if (budgets.contains(category.key())) {
+                        categoryBudgets.put(category, toNanos(budgets.getDouble(category.key())));
+                    }
+                }
+            }
+            return new Settings(
+                Math.max(20, section.getInt("window-ticks", DEFAULTS.windowTicks)),
+                toNanos(section.getDouble("tick-budget-ms", 5.0)),
+                categoryBudgets,
+                TimeUnit.SECONDS.toMillis(section.getLong("warn-interval-seconds", TimeUnit.MILLISECONDS.toSeconds(DEFAULTS.warnIntervalMillis))));
+        }
+        
+        private static long toNanos(double millis) {
+            return (long) (millis * 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.ssi.verification;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Hashed timing wheel: a single worker thread fires every scheduled timeout.
+// Tasks run on the worker thread, so they must hand blocking work off (e.g. async HTTP)
+public class TimingWheel {
+    
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+    
+    private final Logger logger;
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Thread worker;
+    
+    private volatile boolean running;
+    private long startNanos;
+    private long tick;
+    
+    public TimingWheel(String name, long tickMillis, int wheelSize, Logger logger) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        
+        this.logger = logger;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        
+        // Round the wheel up to a power of two so slots can be picked with a mask
+        int size = 1;
+        while (size < wheelSize) size <<= 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        
+        this.worker = new Thread(this::runWorker, name);
+        this.worker.setDaemon(true);
+    }
+    
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        startNanos = System.nanoTime();
+        worker.start();
+    }
+    
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)));
+        pendingCount.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+    
+    public int pendingTimeouts() {
+        return pendingCount.get();
+    }
+    
+    private void runWorker() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) break;
+                    continue;
+                }
+            }
+            
+            transferScheduled();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+    
+    private void transferScheduled() {
+        // Cap the batch so a scheduling storm can't starve the tick itself
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) return;
+            if (timeout.state == STATE_CANCELLED) continue;
+            
+            long ticks = Math.max(0, (timeout.deadline - startNanos + tickNanos - 1) / tickNanos);
+            timeout.remainingRounds = (ticks - tick) / buckets.length;
+            
+            // Anything already overdue goes into the current slot and fires this tick
+            long slot = Math.max(ticks, tick);
+            buckets[(int) (slot & mask)].add(timeout);
+        }
+    }
+    
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.state == STATE_CANCELLED) {
+                bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                // Lose the race against cancel() gracefully
+                if (STATE.compareAndSet(timeout, STATE_PENDING, STATE_EXPIRED)) {
+                    pendingCount.decrementAndGet();
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable t) {
+                        logger.log(Level.WARNING, "Timing wheel task failed", t);
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+    
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = STATE_PENDING;
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+        
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+        
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, STATE_PENDING, STATE_CANCELLED)) return false;
+            pendingCount.decrementAndGet();
+            return true;
+        }
+        
+        public boolean isCancelled() {
+            return state == STATE_CANCELLED;
+        }
+    }
+    
+    // Intrusive doubly linked list, only ever touched by the worker thread
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+        
+        void add(Timeout timeout) {
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+        
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+        }
+    }
+}
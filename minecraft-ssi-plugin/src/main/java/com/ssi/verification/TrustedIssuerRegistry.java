@@ -0,0 +1,160 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+// Local copy of the trusted issuer DIDs, read from the same snapshot the verifier backend uses
+// (ledger-trusted-dids.json: [{"did": ..., "name": ...}]) or a ledger export ({"trustedDIDs": [...]}).
+// Lookups hit an immutable Set swapped in atomically, so a received presentation's issuer can be
+// checked without a round trip. A WatchService reloads the file when it changes; a file that fails
+// to parse leaves the previous set in place. DIDs that disappear are reported to onRemoved so
+// cached trust decisions for them can be dropped.
+public class TrustedIssuerRegistry {
+    
+    // Editors often write a file in several steps; wait for them to settle before reading
+    private static final long RELOAD_DEBOUNCE_MILLIS = 250;
+    
+    private final Logger logger;
+    private final Path file;
+    private final Consumer<String> onRemoved;
+    private volatile Set<String> trusted = Set.of();
+    private WatchService watchService;
+    private Thread watcher;
+    
+    public TrustedIssuerRegistry(Logger logger, Path file, Consumer<String> onRemoved) {
+        this.logger = logger;
+        this.file = file.toAbsolutePath();
+        this.onRemoved = onRemoved;
+    }
+    
+    public void start() {
+        reload();
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warning("Cannot watch " + file + " for changes, trusted issuers won't hot reload: " + e.getMessage());
+            return;
+        }
+        watcher = new Thread(this::watch, "SSIVerification-trust-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+    
+    public boolean isTrusted(String did) {
+        return did != null && trusted.contains(normalize(did));
+    }
+    
+    public int size() {
+        return trusted.size();
+    }
+    
+    public Path file() {
+        return file;
+    }
+    
+    // Returns false (and keeps the current set) if the file is missing or malformed
+    public boolean reload() {
+        Set<String> loaded;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            loaded = parse(JsonParser.parseReader(reader));
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not load trusted issuers from " + file + ", keeping " + trusted.size() + ": " + e.getMessage());
+            return false;
+        }
+        
+        Set<String> previous = trusted;
+        trusted = loaded;
+        logger.info("Loaded " + loaded.size() + " trusted issuer DIDs from " + file.getFileName());
+        for (String did : previous) {
+            if (!loaded.contains(did)) {
+                logger.info("Issuer DID no longer trusted: " + did);
+                onRemoved.accept(did);
+            }
+        }
+        return true;
+    }
+    
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path name && name.equals(file.getFileName())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    Thread.sleep(RELOAD_DEBOUNCE_MILLIS);
+                    // Collapse the burst of events one save produces into a single reload
+                    WatchKey burst;
+                    while ((burst = watchService.poll()) != null) {
+                        burst.pollEvents();
+                        burst.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // stop() closed the service
+        }
+    }
+    
+    private static Set<String> parse(JsonElement root) {
+        JsonArray entries;
+        if (root.isJsonArray()) {
+            entries = root.getAsJsonArray();
+        } else if (root.isJsonObject() && root.getAsJsonObject().has("trustedDIDs")) {
+            entries = root.getAsJsonObject().getAsJsonArray("trustedDIDs");
+        } else {
+            throw new IllegalArgumentException("expected a JSON array of trusted DIDs");
+        }
+        
+        Set<String> dids = new HashSet<>(entries.size() * 2);
+        for (JsonElement entry : entries) {
+            if (entry.isJsonPrimitive()) {
+                dids.add(normalize(entry.getAsString()));
+            } else if (entry.isJsonObject()) {
+                JsonObject object = entry.getAsJsonObject();
+                if (object.has("did")) {
+                    dids.add(normalize(object.get("did").getAsString()));
+                }
+            }
+        }
+        return Set.copyOf(dids);
+    }
+    
+    // Cred def ids carry the unqualified Indy DID; lists may use the did:sov: form
+    private static String normalize(String did) {
+        return did.startsWith("did:sov:") ? did.substring("did:sov:".length()) : did;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ssi.verification;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Remembers successful DID-trust validations per (player, issuer DID, credential definition).
+// When the same player presents the same credential again within the TTL, the remote
+// /v2/validate-proof round trip can be skipped. Must be cleared whenever the trusted-DID list changes.
+public class ValidationResultCache {
+    
+    private final ConcurrentHashMap<Key, Long> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+    
+    public ValidationResultCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+    }
+    
+    public boolean isEnabled() {
+        return ttlNanos > 0 && maxEntries > 0;
+    }
+    
+    public boolean isTrusted(UUID player, String issuerDid, String credentialDefinitionId) {
+        if (!isEnabled()) return false;
+        Key key = new Key(player, issuerDid, credentialDefinitionId);
+        Long expiresAt = entries.get(key);
+        if (expiresAt == null) return false;
+        if (expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key, expiresAt);
+            return false;
+        }
+        return true;
+    }
+    
+    public void recordTrusted(UUID player, String issuerDid, String credentialDefinitionId) {
+        if (!isEnabled()) return;
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(new Key(player, issuerDid, credentialDefinitionId), System.nanoTime() + ttlNanos);
+    }
+    
+    public void invalidateIssuer(String issuerDid) {
+        entries.keySet().removeIf(key -> key.issuerDid().equals(issuerDid));
+    }
+    
+    public int invalidateAll() {
+        int size = entries.size();
+        entries.clear();
+        return size;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    // Expired entries go first; if the cache is still full, drop whatever iterates first
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(expiresAt -> expiresAt - now <= 0);
+        
+        Iterator<Map.Entry<Key, Long>> iterator = entries.entrySet().iterator();
+        int excess = entries.size() - maxEntries + 1;
+        while (excess-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+    
+    private record Key(UUID player, String issuerDid, String credentialDefinitionId) {
+    }
+}
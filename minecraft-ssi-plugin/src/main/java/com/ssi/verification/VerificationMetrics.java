@@ -0,0 +1,276 @@
+package com.ssi.verification;
+
+import okhttp3.HttpUrl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// What verification costs and how it ends. Each stage of a verification (invitation, connection,
+// proof request, presentation, DID validation) and each backend endpoint gets a LatencyHistogram;
+// outcomes are counters, and gauges read live values (sessions in flight...) when scraped.
+// Pre-creating pooled invitations in the background has its own series, so it never mixes with
+// what players wait for. Time-to-verified runs from the player's /verify to the verified outcome.
+// Everything records without locks from any thread. MetricsServer serves prometheusText();
+// /ssistats summarises.
+public class VerificationMetrics {
+    
+    public enum Stage {
+        INVITATION("invitation"), CONNECTION("connection"), PROOF_REQUEST("proof_request"),
+        PRESENTATION("presentation"), DID_VALIDATION("did_validation"), INVITATION_POOL("invitation_pool");
+        
+        private final String label;
+        
+        Stage(String label) {
+            this.label = label;
+        }
+        
+        public String label() {
+            return label;
+        }
+    }
+    
+    public enum Outcome {
+        VERIFIED("verified"), FAILED("failed"), DECLINED("declined"), TIMEOUT("timeout");
+        
+        private final String label;
+        
+        Outcome(String label) {
+            this.label = label;
+        }
+        
+        public String label() {
+            return label;
+        }
+    }
+    
+    // Past this many distinct endpoints, further ones share one "other" series
+    private static final int MAX_ENDPOINTS = 128;
+    
+    // Prometheus bucket bounds, in seconds and in the histogram's microseconds
+    private static final String[] BUCKET_LABELS = {"0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5",
+        "10", "30", "60", "120", "300"};
+    private static final long[] BUCKET_MICROS = {5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000,
+        2_500_000, 5_000_000, 10_000_000, 30_000_000, 60_000_000, 120_000_000, 300_000_000};
+    
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final LatencyHistogram timeToVerified = new LatencyHistogram();
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+    private final Map<UUID, Long> startedNanos = new ConcurrentHashMap<>();
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+    
+    public VerificationMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+    
+    // A verification really started (past the already-verified and availability checks); a second
+    // /verify restarts the clock. Every begin ends in finish() or cancel()
+    public void begin(UUID player) {
+        startedNanos.put(player, System.nanoTime());
+    }
+    
+    // The attempt ended before there was anything to verify (no free slot for the QR map, executor
+    // full), so it counts towards no outcome
+    public void cancel(UUID player) {
+        startedNanos.remove(player);
+    }
+    
+    public int inProgress() {
+        return startedNanos.size();
+    }
+    
+    public void finish(UUID player, Outcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+        Long started = startedNanos.remove(player);
+        if (outcome == Outcome.VERIFIED && started != null) {
+            timeToVerified.recordSince(started);
+        }
+    }
+    
+    public void recordStage(Stage stage, long startedNanos) {
+        stages[stage.ordinal()].recordSince(startedNanos);
+    }
+    
+    // Called by HttpTransport for every call that reached the backend; failed = I/O error or 5xx
+    public void recordBackendCall(String backend, String method, HttpUrl url, long nanos, boolean failed) {
+        String route = route(url);
+        String key = backend + ' ' + method + ' ' + route;
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            if (endpoints.size() >= MAX_ENDPOINTS) {
+                key = backend + ' ' + method + " other";
+                route = "other";
+            }
+            String finalRoute = route;
+            endpoint = endpoints.computeIfAbsent(key, ignored -> new Endpoint(backend, method, finalRoute));
+        }
+        endpoint.latency().record(nanos);
+        if (failed) endpoint.failures().increment();
+    }
+    
+    // Registered once at startup; read on the scraping thread, so suppliers must be thread-safe
+    public void gauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, help, value));
+    }
+    
+    // Path with record ids (UUIDs, long hex or numeric segments, generated session ids) replaced by
+    // ":id", so every connection or proof record doesn't become a series of its own
+    static String route(HttpUrl url) {
+        StringBuilder route = new StringBuilder();
+        for (String segment : url.pathSegments()) {
+            if (segment.isEmpty()) continue;
+            route.append('/').append(looksLikeId(segment) ? ":id" : segment);
+        }
+        return route.length() == 0 ? "/" : route.toString();
+    }
+    
+    private static boolean looksLikeId(String segment) {
+        boolean digits = false;
+        boolean hexOnly = true;
+        boolean dotted = false;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.') {
+                dotted = true;
+                hexOnly = false;
+            } else if (!(c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F' || c == '-')) {
+                hexOnly = false;
+            }
+        }
+        if (!digits) return false;
+        return hexOnly && segment.length() >= 8 || !dotted && segment.length() >= 12
+            || segment.chars().allMatch(Character::isDigit);
+    }
+    
+    public Summary summary() {
+        List<StageSummary> stageSummaries = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            stageSummaries.add(new StageSummary(stage.label(), stages[stage.ordinal()].snapshot()));
+        }
+        long[] outcomeCounts = new long[outcomes.length];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomeCounts[i] = outcomes[i].sum();
+        }
+        List<EndpointSummary> endpointSummaries = new ArrayList<>();
+        for (Endpoint endpoint : endpoints.values()) {
+            endpointSummaries.add(new EndpointSummary(endpoint.backend(), endpoint.method(), endpoint.route(),
+                endpoint.latency().snapshot(), endpoint.failures().sum()));
+        }
+        endpointSummaries.sort(Comparator.comparingLong((EndpointSummary summary) -> summary.latency().count()).reversed());
+        List<GaugeValue> gaugeValues = new ArrayList<>();
+        for (Gauge gauge : gauges) {
+            gaugeValues.add(new GaugeValue(gauge.name(), gauge.help(), gauge.value().getAsLong()));
+        }
+        return new Summary(new StageSummary("time_to_verified", timeToVerified.snapshot()), stageSummaries,
+            outcomeCounts, endpointSummaries, gaugeValues);
+    }
+    
+    // Prometheus text exposition format 0.0.4
+    public String prometheusText() {
+        Summary summary = summary();
+        StringBuilder text = new StringBuilder(8192);
+        
+        header(text, "ssi_verification_time_to_verified_seconds", "histogram",
+            "Time from a player's verification request to the verified outcome");
+        histogram(text, "ssi_verification_time_to_verified_seconds", "", summary.timeToVerified().latency());
+        
+        header(text, "ssi_verification_stage_duration_seconds", "histogram", "Duration of each verification stage");
+        for (StageSummary stage : summary.stages()) {
+            histogram(text, "ssi_verification_stage_duration_seconds", "stage=\"" + stage.name() + "\"", stage.latency());
+        }
+        
+        header(text, "ssi_verification_outcomes_total", "counter", "Finished verifications by outcome");
+        for (Outcome outcome : Outcome.values()) {
+            text.append("ssi_verification_outcomes_total{outcome=\"").append(outcome.label()).append("\"} ")
+                .append(summary.outcome(outcome)).append('\n');
+        }
+        
+        header(text, "ssi_backend_request_duration_seconds", "histogram", "Backend call latency by endpoint");
+        for (EndpointSummary endpoint : summary.endpoints()) {
+            histogram(text, "ssi_backend_request_duration_seconds", endpointLabels(endpoint), endpoint.latency());
+        }
+        header(text, "ssi_backend_request_failures_total", "counter", "Backend calls that failed with an I/O error or 5xx");
+        for (EndpointSummary endpoint : summary.endpoints()) {
+            text.append("ssi_backend_request_failures_total{").append(endpointLabels(endpoint)).append("} ")
+                .append(endpoint.failures()).append('\n');
+        }
+        
+        for (GaugeValue gauge : summary.gauges()) {
+            header(text, gauge.name(), "gauge", gauge.help());
+            text.append(gauge.name()).append(' ').append(gauge.value()).append('\n');
+        }
+        return text.toString();
+    }
+    
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void histogram(StringBuilder text, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < BUCKET_MICROS.length; i++) {
+            text.append(name).append("_bucket{").append(prefix).append("le=\"").append(BUCKET_LABELS[i]).append("\"} ")
+                .append(snapshot.countAtOrBelow(BUCKET_MICROS[i])).append('\n');
+        }
+        text.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(snapshot.count()).append('\n');
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        text.append(name).append("_sum").append(braces).append(' ').append(seconds(snapshot.sumMicros())).append('\n');
+        text.append(name).append("_count").append(braces).append(' ').append(snapshot.count()).append('\n');
+    }
+    
+    private static String endpointLabels(EndpointSummary endpoint) {
+        return "backend=\"" + escape(endpoint.backend()) + "\",method=\"" + escape(endpoint.method())
+            + "\",route=\"" + escape(endpoint.route()) + "\"";
+    }
+    
+    private static String seconds(long micros) {
+        return BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    private record Endpoint(String backend, String method, String route, LatencyHistogram latency, LongAdder failures) {
+        Endpoint(String backend, String method, String route) {
+            this(backend, method, route, new LatencyHistogram(), new LongAdder());
+        }
+    }
+    
+    private record Gauge(String name, String help, LongSupplier value) {
+    }
+    
+    public record StageSummary(String name, LatencyHistogram.Snapshot latency) {
+    }
+    
+    public record EndpointSummary(String backend, String method, String route, LatencyHistogram.Snapshot latency,
+                                  long failures) {
+    }
+    
+    public record GaugeValue(String name, String help, long value) {
+    }
+    
+    // Endpoints are sorted busiest first
+    public record Summary(StageSummary timeToVerified, List<StageSummary> stages, long[] outcomes,
+                          List<EndpointSummary> endpoints, List<GaugeValue> gauges) {
+        public long outcome(Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+    }
+}
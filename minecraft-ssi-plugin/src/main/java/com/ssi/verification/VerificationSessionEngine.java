@@ -0,0 +1,263 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonObject;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+// Owns every in-flight verification. Instead of one repeating Bukkit task per player and stage,
+// all sessions are driven from a single timing wheel and each poll is an async step, so the
+// number of threads stays flat no matter how many players are verifying at once.
+public class VerificationSessionEngine {
+    
+    private static final long TICK_MILLIS = 50;
+    private static final int WHEEL_SIZE = 512;
+    
+    private final Logger logger;
+    private final TimingWheel wheel;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Backend record id -> session currently waiting on it, so pushed events skip the poll loop
+    private final ConcurrentHashMap<String, Session> correlations = new ConcurrentHashMap<>();
+    
+    public VerificationSessionEngine(String name, Logger logger) {
+        this.logger = logger;
+        this.wheel = new TimingWheel(name + "-sessions", TICK_MILLIS, WHEEL_SIZE, logger);
+    }
+    
+    public void start() {
+        wheel.start();
+    }
+    
+    public void shutdown() {
+        for (Session session : sessions.values()) {
+            session.finish();
+        }
+        sessions.clear();
+        correlations.clear();
+        wheel.stop();
+    }
+    
+    // Starts (or restarts) the session for a key; an older session under the same key is dropped
+    // and its stage told through onReplaced()
+    public Session start(String key, Player player, SessionStage firstStage) {
+        Session session = new Session(key, player, firstStage);
+        Session previous = sessions.put(key, session);
+        if (previous != null && previous.finish()) {
+            previous.stage().onReplaced(previous);
+        }
+        session.bind(firstStage);
+        session.schedule(firstStage.pollingPolicy().delayMillis(0));
+        return session;
+    }
+    
+    // Routes a pushed backend event to whichever session is waiting on one of the given ids
+    public boolean signal(String topic, JsonObject payload, String... ids) {
+        Session target = null;
+        for (String id : ids) {
+            if (id == null) continue;
+            target = correlations.get(id);
+            if (target != null) break;
+        }
+        if (target == null) return false;
+        target.onEvent(topic, payload);
+        return true;
+    }
+    
+    public Session get(String key) {
+        return sessions.get(key);
+    }
+    
+    public boolean cancel(String key) {
+        Session session = sessions.get(key);
+        return session != null && session.finish();
+    }
+    
+    // Runs a one-off task on the engine's timer thread (shared pollers, retries...); it must not block
+    public TimingWheel.Timeout schedule(Runnable task, long delayMillis) {
+        return wheel.schedule(task, delayMillis);
+    }
+    
+    public int activeSessions() {
+        return sessions.size();
+    }
+    
+    public int scheduledSteps() {
+        return wheel.pendingTimeouts();
+    }
+    
+    public final class Session {
+        private final String key;
+        private final Player player;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AtomicBoolean polling = new AtomicBoolean();
+        
+        private volatile SessionStage stage;
+        private volatile long stageStartedNanos;
+        private volatile int attempts;
+        private volatile TimingWheel.Timeout nextStep;
+        
+        private Session(String key, Player player, SessionStage stage) {
+            this.key = key;
+            this.player = player;
+            this.stage = stage;
+            this.stageStartedNanos = System.nanoTime();
+        }
+        
+        public String key() {
+            return key;
+        }
+        
+        public Player player() {
+            return player;
+        }
+        
+        public SessionStage stage() {
+            return stage;
+        }
+        
+        // When the current stage began (System.nanoTime()), for stage latency metrics
+        public long stageStartedNanos() {
+            return stageStartedNanos;
+        }
+        
+        // Polls made in the current stage, including the one in progress
+        public int attempts() {
+            return attempts;
+        }
+        
+        public boolean isActive() {
+            return !finished.get();
+        }
+        
+        // Replaces any pending step, so an event that moved the session on can't leave a stale poll behind
+        private synchronized void schedule(long delayMillis) {
+            if (finished.get()) return;
+            TimingWheel.Timeout previous = nextStep;
+            if (previous != null) {
+                previous.cancel();
+            }
+            nextStep = wheel.schedule(this::step, delayMillis);
+        }
+        
+        private void bind(SessionStage target) {
+            for (String id : target.correlationIds()) {
+                correlations.put(id, this);
+            }
+        }
+        
+        private void unbind(SessionStage target) {
+            for (String id : target.correlationIds()) {
+                correlations.remove(id, this);
+            }
+        }
+        
+        private void onEvent(String topic, JsonObject payload) {
+            if (finished.get()) return;
+            
+            // Events share the polling flag so a stage never handles two answers at once;
+            // if a poll is in flight, look again on the next tick
+            if (!polling.compareAndSet(false, true)) {
+                wheel.schedule(() -> onEvent(topic, payload), TICK_MILLIS);
+                return;
+            }
+            
+            SessionStage current = stage;
+            CompletableFuture<StageResult> result;
+            try {
+                result = current.onEvent(this, topic, payload);
+            } catch (Exception e) {
+                polling.set(false);
+                logger.warning("[" + current.name() + "] event " + topic + " failed for " + key + ": " + e.getMessage());
+                return;
+            }
+            if (result == null) {
+                polling.set(false);
+                return;
+            }
+            
+            result.whenComplete((outcome, error) -> {
+                polling.set(false);
+                if (finished.get() || stage != current) return;
+                
+                if (error != null) {
+                    logger.warning("[" + current.name() + "] event " + topic + " failed for " + key + ": " + error.getMessage());
+                } else if (outcome != null && (outcome.isComplete() || outcome.next() != null)) {
+                    apply(current, outcome);
+                }
+            });
+        }
+        
+        private void step() {
+            if (finished.get()) return;
+            
+            SessionStage current = stage;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stageStartedNanos);
+            if (elapsedMillis >= current.timeoutMillis()) {
+                if (finish()) {
+                    current.onTimeout(this);
+                }
+                return;
+            }
+            
+            // A slow backend must not stack up overlapping polls for the same session
+            if (!polling.compareAndSet(false, true)) {
+                schedule(current.pollingPolicy().delayMillis(attempts));
+                return;
+            }
+            
+            attempts++;
+            CompletableFuture<StageResult> result;
+            try {
+                result = current.poll(this);
+            } catch (Exception e) {
+                polling.set(false);
+                logger.warning("[" + current.name() + "] poll failed for " + key + ": " + e.getMessage());
+                schedule(current.pollingPolicy().delayMillis(attempts));
+                return;
+            }
+            
+            result.whenComplete((outcome, error) -> {
+                polling.set(false);
+                if (finished.get() || stage != current) return;
+                
+                if (error != null) {
+                    logger.warning("[" + current.name() + "] poll failed for " + key + ": " + error.getMessage());
+                    schedule(current.pollingPolicy().delayMillis(attempts));
+                } else {
+                    apply(current, outcome);
+                }
+            });
+        }
+        
+        private void apply(SessionStage current, StageResult outcome) {
+            if (outcome == null || (!outcome.isComplete() && outcome.next() == null)) {
+                schedule(current.pollingPolicy().delayMillis(attempts));
+            } else if (outcome.isComplete()) {
+                finish();
+            } else {
+                SessionStage next = outcome.next();
+                unbind(current);
+                stage = next;
+                bind(next);
+                attempts = 0;
+                stageStartedNanos = System.nanoTime();
+                schedule(next.pollingPolicy().delayMillis(0));
+            }
+        }
+        
+        private boolean finish() {
+            if (!finished.compareAndSet(false, true)) return false;
+            sessions.remove(key, this);
+            unbind(stage);
+            TimingWheel.Timeout pending = nextStep;
+            if (pending != null) {
+                pending.cancel();
+            }
+            return true;
+        }
+    }
+}
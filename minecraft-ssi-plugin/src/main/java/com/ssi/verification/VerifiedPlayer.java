@@ -0,0 +1,11 @@
+package com.ssi.verification;
+
+import java.util.UUID;
+
+// A player who completed verification; issuerDid is null when the backend didn't report one
+public record VerifiedPlayer(UUID uuid, String name, long verifiedAt, String issuerDid, int tier) {
+    
+    // Credential tiers, kept in the low bits of VerifiedPlayerSet entries
+    public static final int TIER_WALLET = 1;          // Web wallet reported the credential as verified
+    public static final int TIER_TRUSTED_ISSUER = 2;  // Proof validated against the trusted issuer list
+}
@@ -0,0 +1,208 @@
+package com.ssi.verification;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Who is verified. The hot question ("is this UUID verified, and at which tier?") is answered from
+// a primitive VerifiedPlayerSet in memory; full records (name, issuer, time) stay in the
+// VerifiedPlayerStore and are looked up on demand. Writes never touch disk on the caller's thread:
+// they are coalesced per player and flushed in batches by a single background writer. That writer
+// is the plugin's persistence executor: store lookups queue on it too, up to a fixed bound.
+public class VerifiedPlayerRegistry {
+    
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+    private static final int FLUSH_BATCH_SIZE = 256;
+    private static final int MAX_QUEUED_QUERIES = 128;
+    private static final String WRITER_NAME = "SSIVerification-store";
+    
+    private final Logger logger;
+    private final VerifiedPlayerStore store;
+    private final long ttlMillis;
+    private final VerifiedPlayerSet verified = new VerifiedPlayerSet(1024);
+    private final Map<UUID, VerifiedPlayerStore.Change> pending = new LinkedHashMap<>();
+    private final ScheduledThreadPoolExecutor writer;
+    private final AtomicInteger queuedQueries = new AtomicInteger();
+    private final LongAdder completedQueries = new LongAdder();
+    private final LongAdder rejectedQueries = new LongAdder();
+    private final LongAdder totalQueryNanos = new LongAdder();
+    private final AtomicLong maxQueryWaitNanos = new AtomicLong();
+    
+    // ttlMillis <= 0 keeps verifications forever
+    public VerifiedPlayerRegistry(Logger logger, VerifiedPlayerStore store, long ttlMillis) {
+        this.logger = logger;
+        this.store = store;
+        this.ttlMillis = ttlMillis;
+        this.writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, WRITER_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Reads the whole verified set; call once from onEnable before any lookups
+    public void load() throws IOException {
+        long started = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        store.loadAll(player -> {
+            if (!isExpired(player, nowMillis)) {
+                verified.put(player.uuid(), expiresAtSeconds(player.verifiedAt()), player.tier());
+            }
+        });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        logger.info("Loaded " + verified.size() + " verified players from " + store.describe() + " in " + elapsedMillis + "ms");
+        
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (ttlMillis > 0) {
+            writer.scheduleWithFixedDelay(() -> verified.purgeExpired(System.currentTimeMillis() / 1000),
+                PURGE_INTERVAL_MILLIS, PURGE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    // Allocation-free; safe on the main thread and in per-event gating checks
+    public boolean isVerified(UUID uuid) {
+        return verified.contains(uuid);
+    }
+    
+    public int tier(UUID uuid) {
+        return verified.tier(uuid);
+    }
+    
+    // Full record for a possibly offline player, read from the store after pending writes land
+    public CompletableFuture<Optional<VerifiedPlayer>> lookup(UUID uuid) {
+        return query(() -> store.find(uuid));
+    }
+    
+    // By last known name; works for offline players, whose UUID the server may not know
+    public CompletableFuture<Optional<VerifiedPlayer>> lookupByName(String name) {
+        return query(() -> store.findByName(name));
+    }
+    
+    public int size() {
+        return verified.size();
+    }
+    
+    // Lookups waiting on the writer; flushes are not counted since they coalesce
+    public BoundedExecutor.Stats stats() {
+        long done = completedQueries.sum();
+        return new BoundedExecutor.Stats(WRITER_NAME, 1, writer.getActiveCount(),
+            queuedQueries.get(), MAX_QUEUED_QUERIES, done, rejectedQueries.sum(),
+            TimeUnit.NANOSECONDS.toMicros(maxQueryWaitNanos.get()),
+            done > 0 ? TimeUnit.NANOSECONDS.toMicros(totalQueryNanos.sum() / done) : 0);
+    }
+    
+    public VerifiedPlayer markVerified(UUID uuid, String name, String issuerDid, int tier) {
+        VerifiedPlayer player = new VerifiedPlayer(uuid, name, System.currentTimeMillis(), issuerDid, tier);
+        verified.put(uuid, expiresAtSeconds(player.verifiedAt()), tier);
+        enqueue(new VerifiedPlayerStore.Change(uuid, player));
+        return player;
+    }
+    
+    public boolean revoke(UUID uuid) {
+        if (!verified.remove(uuid)) return false;
+        enqueue(new VerifiedPlayerStore.Change(uuid, null));
+        return true;
+    }
+    
+    // Flushes everything still queued and closes the backend; called from onDisable
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            store.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close " + store.describe() + ": " + e.getMessage());
+        }
+    }
+    
+    private long expiresAtSeconds(long verifiedAtMillis) {
+        return ttlMillis > 0 ? (verifiedAtMillis + ttlMillis) / 1000 : 0;
+    }
+    
+    private boolean isExpired(VerifiedPlayer player, long nowMillis) {
+        return ttlMillis > 0 && player.verifiedAt() + ttlMillis <= nowMillis;
+    }
+    
+    private CompletableFuture<Optional<VerifiedPlayer>> query(StoreQuery query) {
+        if (queuedQueries.incrementAndGet() > MAX_QUEUED_QUERIES) {
+            queuedQueries.decrementAndGet();
+            rejectedQueries.increment();
+            return CompletableFuture.failedFuture(
+                new RejectedExecutionException(WRITER_NAME + " is saturated (" + MAX_QUEUED_QUERIES + " queued)"));
+        }
+        
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            queuedQueries.decrementAndGet();
+            maxQueryWaitNanos.accumulateAndGet(started - queuedAt, Math::max);
+            try {
+                flush();
+                return query.run().filter(player -> !isExpired(player, System.currentTimeMillis()));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                totalQueryNanos.add(System.nanoTime() - started);
+                completedQueries.increment();
+            }
+        }, writer);
+    }
+    
+    private void enqueue(VerifiedPlayerStore.Change change) {
+        boolean full;
+        synchronized (pending) {
+            // Only the latest state per player matters, so verify/reset/verify collapses to one write
+            pending.remove(change.uuid());
+            pending.put(change.uuid(), change);
+            full = pending.size() >= FLUSH_BATCH_SIZE;
+        }
+        if (full && !writer.isShutdown()) {
+            writer.execute(this::flush);
+        }
+    }
+    
+    private synchronized void flush() {
+        List<VerifiedPlayerStore.Change> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        
+        try {
+            store.writeBatch(batch);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to persist " + batch.size() + " verified player changes, will retry", e);
+            synchronized (pending) {
+                // Newer changes queued meanwhile win over the ones we are putting back
+                for (VerifiedPlayerStore.Change change : batch) {
+                    pending.putIfAbsent(change.uuid(), change);
+                }
+            }
+        }
+    }
+    
+    private interface StoreQuery {
+        Optional<VerifiedPlayer> run() throws IOException;
+    }
+}
@@ -0,0 +1,242 @@
+package com.ssi.verification;
+
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+// Open-addressing hash set of verified UUIDs, flattened into one long[]: each slot is three longs
+// (most significant bits, least significant bits, meta). meta packs the expiry in epoch seconds
+// (0 = never) above 8 bits of credential tier. Lookups take an optimistic StampedLock read and
+// allocate nothing, so gating checks on the main thread stay in the nanosecond range.
+// The nil UUID (all zero bits) marks an empty slot and can't be stored.
+public final class VerifiedPlayerSet {
+    
+    public static final int NOT_VERIFIED = -1;
+    
+    private static final int STRIDE = 3;
+    private static final int TIER_BITS = 8;
+    private static final long TIER_MASK = (1L << TIER_BITS) - 1;
+    private static final long ABSENT = -1L;
+    private static final double MAX_LOAD = 0.6;
+    
+    private final StampedLock lock = new StampedLock();
+    private long[] table;
+    private int size;
+    
+    public VerifiedPlayerSet(int expectedSize) {
+        this.table = new long[capacityFor(expectedSize) * STRIDE];
+    }
+    
+    // Tier of a verified, unexpired player, or NOT_VERIFIED
+    public int tier(UUID uuid) {
+        return tier(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), System.currentTimeMillis() / 1000);
+    }
+    
+    public boolean contains(UUID uuid) {
+        return tier(uuid) != NOT_VERIFIED;
+    }
+    
+    public int tier(long msb, long lsb, long nowSeconds) {
+        long meta;
+        long stamp = lock.tryOptimisticRead();
+        meta = find(table, msb, lsb);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                meta = find(table, msb, lsb);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        
+        if (meta == ABSENT) return NOT_VERIFIED;
+        long expiresAt = meta >>> TIER_BITS;
+        if (expiresAt != 0 && expiresAt <= nowSeconds) return NOT_VERIFIED;
+        return (int) (meta & TIER_MASK);
+    }
+    
+    public void put(UUID uuid, long expiresAtSeconds, int tier) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) throw new IllegalArgumentException("The nil UUID can't be stored");
+        if (tier < 0 || tier > TIER_MASK) throw new IllegalArgumentException("Tier must fit in " + TIER_BITS + " bits");
+        
+        long meta = (Math.max(0, expiresAtSeconds) << TIER_BITS) | tier;
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) > slots(table) * MAX_LOAD) {
+                table = rehash(table, capacityFor(size + 1));
+            }
+            if (insert(table, msb, lsb, meta)) {
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public boolean remove(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        long stamp = lock.writeLock();
+        try {
+            int mask = slots(table) - 1;
+            int slot = indexOf(table, msb, lsb);
+            if (slot < 0) return false;
+            deleteAt(table, slot, mask);
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // Drops every entry whose expiry has passed; returns how many were removed
+    public int purgeExpired(long nowSeconds) {
+        long stamp = lock.writeLock();
+        try {
+            int mask = slots(table) - 1;
+            int removed = 0;
+            int slot = 0;
+            while (slot <= mask) {
+                int base = slot * STRIDE;
+                boolean occupied = table[base] != 0 || table[base + 1] != 0;
+                long expiresAt = table[base + 2] >>> TIER_BITS;
+                if (occupied && expiresAt != 0 && expiresAt <= nowSeconds) {
+                    // Backward shift may pull a later entry into this slot, so look at it again
+                    deleteAt(table, slot, mask);
+                    size--;
+                    removed++;
+                } else {
+                    slot++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    public int capacity() {
+        long stamp = lock.readLock();
+        try {
+            return slots(table);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    // Safe to call without a lock: bounded probe, and the caller validates the stamp afterwards
+    private static long find(long[] table, long msb, long lsb) {
+        int slots = slots(table);
+        int mask = slots - 1;
+        int slot = hash(msb, lsb) & mask;
+        for (int probes = 0; probes < slots; probes++) {
+            int base = slot * STRIDE;
+            long slotMsb = table[base];
+            long slotLsb = table[base + 1];
+            if (slotMsb == msb && slotLsb == lsb) {
+                return (msb == 0 && lsb == 0) ? ABSENT : table[base + 2];
+            }
+            if (slotMsb == 0 && slotLsb == 0) return ABSENT;
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+    
+    private static int indexOf(long[] table, long msb, long lsb) {
+        if (msb == 0 && lsb == 0) return -1;
+        int mask = slots(table) - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int base = slot * STRIDE;
+            if (table[base] == msb && table[base + 1] == lsb) return slot;
+            if (table[base] == 0 && table[base + 1] == 0) return -1;
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    // Returns true when a new key was added, false when an existing entry was updated
+    private static boolean insert(long[] table, long msb, long lsb, long meta) {
+        int mask = slots(table) - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int base = slot * STRIDE;
+            boolean empty = table[base] == 0 && table[base + 1] == 0;
+            if (empty || (table[base] == msb && table[base + 1] == lsb)) {
+                table[base] = msb;
+                table[base + 1] = lsb;
+                table[base + 2] = meta;
+                return empty;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    // Linear-probing deletion without tombstones: shift later entries of the same run back
+    // into the hole whenever their home slot doesn't lie between the hole and their position
+    private static void deleteAt(long[] table, int hole, int mask) {
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            int nextBase = next * STRIDE;
+            long msb = table[nextBase];
+            long lsb = table[nextBase + 1];
+            if (msb == 0 && lsb == 0) break;
+            
+            int home = hash(msb, lsb) & mask;
+            boolean between = hole <= next
+                ? (hole < home && home <= next)
+                : (hole < home || home <= next);
+            if (!between) {
+                int holeBase = hole * STRIDE;
+                table[holeBase] = msb;
+                table[holeBase + 1] = lsb;
+                table[holeBase + 2] = table[nextBase + 2];
+                hole = next;
+            }
+        }
+        int base = hole * STRIDE;
+        table[base] = 0;
+        table[base + 1] = 0;
+        table[base + 2] = 0;
+    }
+    
+    private static long[] rehash(long[] old, int capacity) {
+        long[] grown = new long[capacity * STRIDE];
+        for (int base = 0; base < old.length; base += STRIDE) {
+            if (old[base] != 0 || old[base + 1] != 0) {
+                insert(grown, old[base], old[base + 1], old[base + 2]);
+            }
+        }
+        return grown;
+    }
+    
+    private static int slots(long[] table) {
+        return table.length / STRIDE;
+    }
+    
+    private static int capacityFor(int entries) {
+        int needed = (int) Math.ceil(Math.max(16, entries) / MAX_LOAD);
+        int capacity = 1;
+        while (capacity < needed) capacity <<= 1;
+        return capacity;
+    }
+    
+    // UUIDs are mostly random already; mix anyway so sequential or crafted ids don't cluster
+    static int hash(long msb, long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ssi.verification;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+// Durable backend behind VerifiedPlayerRegistry. Apart from loadAll at startup, only the registry's
+// writer thread calls into the store, so implementations don't need to be thread safe.
+public interface VerifiedPlayerStore {
+    
+    // Streams every stored record to the sink, without building an intermediate list
+    void loadAll(Consumer<VerifiedPlayer> sink) throws IOException;
+    
+    Optional<VerifiedPlayer> find(UUID uuid) throws IOException;
+    
+    // Case-insensitive; the most recent verification wins if a name was reused
+    Optional<VerifiedPlayer> findByName(String name) throws IOException;
+    
+    void writeBatch(Collection<Change> changes) throws IOException;
+    
+    void close() throws IOException;
+    
+    String describe();
+    
+    // One pending write: record == null means the player's verification was revoked
+    record Change(UUID uuid, VerifiedPlayer record) {
+    }
+    
+    // "sqlite" uses the SQLite driver bundled with the server, "file" an append-only log;
+    // if SQLite can't be opened we fall back to the file so verification keeps working
+    static VerifiedPlayerStore open(String type, File dataFolder, Logger logger) throws IOException {
+        if (!dataFolder.exists() && !dataFolder.mkdirs()) {
+            throw new IOException("Could not create " + dataFolder);
+        }
+        
+        if ("sqlite".equalsIgnoreCase(type)) {
+            try {
+                return new SqliteVerifiedPlayerStore(new File(dataFolder, "verified-players.db"));
+            } catch (IOException e) {
+                logger.warning("SQLite store unavailable (" + e.getMessage() + "), using append-only file instead");
+            }
+        } else if (!"file".equalsIgnoreCase(type)) {
+            logger.warning("Unknown storage.type '" + type + "', using append-only file");
+        }
+        return new AppendOnlyVerifiedPlayerStore(new File(dataFolder, "verified-players.log"));
+    }
+}
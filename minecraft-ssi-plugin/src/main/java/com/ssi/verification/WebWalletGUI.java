@@ -24,22 +24,29 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 public class WebWalletGUI implements Listener {
     
     private final JavaPlugin plugin;
-    private final OkHttpClient httpClient;
+    private final HttpTransport httpClient;
+    private final Executor executor;
     private final String verificationSessionId;
     private final Player player;
+    private final TickTimings timings;
     private Inventory gui;
     private JsonArray notifications;
     private JsonArray credentials;
     private String selectedNotificationId;
     private String selectedCredentialId;
     
-    public WebWalletGUI(JavaPlugin plugin, OkHttpClient httpClient, String verificationSessionId, Player player) {
+    public WebWalletGUI(JavaPlugin plugin, HttpTransport httpClient, Executor executor, TickTimings timings,
+                        String verificationSessionId, Player player) {
         this.plugin = plugin;
         this.httpClient = httpClient;
+        this.executor = executor;
+        this.timings = timings;
         this.verificationSessionId = verificationSessionId;
         this.player = player;
         
@@ -50,7 +57,7 @@ public class WebWalletGUI implements Listener {
     public void openWebWallet() {
         player.sendMessage(Component.text("📱 Opening Web Wallet Interface...", NamedTextColor.YELLOW));
         
-        CompletableFuture.runAsync(() -> {
+        inBackground(() -> {
             try {
                 // Fetch notifications and credentials from web wallet API
                 fetchWebWalletData().thenRun(() -> {
@@ -70,37 +77,15 @@ public class WebWalletGUI implements Listener {
     private CompletableFuture<Void> fetchWebWalletData() {
         return CompletableFuture.runAsync(() -> {
             try {
-                // Fetch notifications
-                Request notificationsRequest = new Request.Builder()
-                    .url("http://localhost:3001/api/notifications")
-                    .build();
-                
-                try (Response response = httpClient.newCall(notificationsRequest).execute()) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        String responseBody = response.body().string();
-                        JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-                        notifications = responseJson.getAsJsonArray("notifications");
-                        plugin.getLogger().info("Fetched " + notifications.size() + " notifications");
-                    } else {
-                        notifications = new JsonArray();
-                    }
-                }
-                
-                // Fetch credentials
-                Request credentialsRequest = new Request.Builder()
-                    .url("http://localhost:3001/api/credentials")
-                    .build();
+                // Both reads start together and are shared with other players fetching the same
+                // lists; the parsed trees are shared too, so they are only read, never modified
+                CompletableFuture<JsonArray> notificationsRead = sharedArray("http://localhost:3001/api/notifications", "notifications");
+                CompletableFuture<JsonArray> credentialsRead = sharedArray("http://localhost:3001/api/credentials", "credentials");
                 
-                try (Response response = httpClient.newCall(credentialsRequest).execute()) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        String responseBody = response.body().string();
-                        JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-                        credentials = responseJson.getAsJsonArray("credentials");
-                        plugin.getLogger().info("Fetched " + credentials.size() + " credentials");
-                    } else {
-                        credentials = new JsonArray();
-                    }
-                }
+                notifications = notificationsRead.join();
+                plugin.getLogger().info("Fetched " + notifications.size() + " notifications");
+                credentials = credentialsRead.join();
+                plugin.getLogger().info("Fetched " + credentials.size() + " credentials");
                 
             } catch (Exception e) {
                 plugin.getLogger().severe("Error fetching web wallet data: " + e.getMessage());
@@ -108,10 +93,15 @@ public class WebWalletGUI implements Listener {
                 notifications = new JsonArray();
                 credentials = new JsonArray();
             }
-        });
+        }, executor);
     }
     
+    // Building and refreshing the inventory screens is timed as GUI work
     private void createGUI() {
+        timings.run(TickTimings.Category.GUI, this::buildNotificationScreen);
+    }
+    
+    private void buildNotificationScreen() {
         // Create phone-screen shaped inventory (9x6 = 54 slots, phone-like aspect ratio)
         gui = Bukkit.createInventory(null, 54, Component.text("📱 Web Wallet - Notifications", NamedTextColor.BLUE, TextDecoration.BOLD));
         
@@ -261,6 +251,10 @@ public class WebWalletGUI implements Listener {
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         if (event.getInventory() != gui) return;
+        timings.run(TickTimings.Category.GUI, () -> handleClick(event));
+    }
+    
+    private void handleClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) return;
         if (!event.getWhoClicked().equals(player)) return;
         
@@ -289,7 +283,7 @@ public class WebWalletGUI implements Listener {
             player.sendMessage(Component.text("🔄 Refreshing web wallet...", NamedTextColor.YELLOW));
             fetchWebWalletData().thenRun(() -> {
                 Bukkit.getScheduler().runTask(plugin, () -> {
-                    displayNotifications();
+                    timings.run(TickTimings.Category.GUI, this::displayNotifications);
                     player.sendMessage(Component.text("✅ Web wallet refreshed", NamedTextColor.GREEN));
                 });
             });
@@ -443,7 +437,7 @@ public class WebWalletGUI implements Listener {
     private void acceptCredentialOffer(String notificationId) {
         player.sendMessage(Component.text("✅ Accepting credential offer...", NamedTextColor.GREEN));
         
-        CompletableFuture.runAsync(() -> {
+        inBackground(() -> {
             try {
                 // Send accept request to web wallet API
                 JsonObject requestBody = new JsonObject();
@@ -478,7 +472,7 @@ public class WebWalletGUI implements Listener {
     private void shareCredential(String credentialId) {
         player.sendMessage(Component.text("📤 Sharing credential...", NamedTextColor.YELLOW));
         
-        CompletableFuture.runAsync(() -> {
+        inBackground(() -> {
             try {
                 // Send share request to web wallet API
                 JsonObject requestBody = new JsonObject();
@@ -515,7 +509,7 @@ public class WebWalletGUI implements Listener {
     private void declineProofRequest() {
         player.sendMessage(Component.text("❌ Declining proof request...", NamedTextColor.RED));
         
-        CompletableFuture.runAsync(() -> {
+        inBackground(() -> {
             try {
                 // Send decline request to web wallet API
                 JsonObject requestBody = new JsonObject();
@@ -593,4 +587,26 @@ public class WebWalletGUI implements Listener {
             }
         }
     }
+    
+    // A missing list or a failed read counts as empty, as before
+    private CompletableFuture<JsonArray> sharedArray(String url, String member) {
+        return httpClient.getSharedJson(url)
+            .thenApply(json -> json.isJsonObject() && json.getAsJsonObject().has(member)
+                ? json.getAsJsonObject().getAsJsonArray(member)
+                : new JsonArray())
+            .exceptionally(e -> {
+                plugin.getLogger().warning("Error fetching " + url + ": " + e.getMessage());
+                return new JsonArray();
+            });
+    }
+    
+    // Wallet calls block, so they run on the plugin's network executor
+    private void inBackground(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().warning("Network executor busy: " + e.getMessage());
+            player.sendMessage(Component.text("⏳ Web wallet is busy, try again in a moment", NamedTextColor.YELLOW));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.ssi.verification;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Replies decoded the way the plugin receives them, in the shapes vr-web-wallet's routes produce
+class BackendProtocolTest {
+    
+    // A session as POST /api/minecraft/verify stores it for a web_proof_request
+    private static String session(String status, String verificationResult) {
+        return "{\"id\":\"verification-1712000000000\",\"type\":\"web_proof_request\","
+            + "\"verificationSessionId\":\"web_1712000000000_Steve\",\"title\":\"Minecraft Web Verification\","
+            + "\"message\":\"Steve requests verification via web wallet (Bifold-compatible)\","
+            + "\"timestamp\":\"2024-04-01T12:00:00Z\","
+            + "\"requester\":{\"playerName\":\"Steve\",\"playerUUID\":\"00000000-0000-002a-0000-000000000007\"},"
+            + "\"requestedAttributes\":[\"name\",\"email\",\"department\",\"issuer_did\",\"age\"],"
+            + "\"proofRequestData\":{\"name\":\"Minecraft Web Verification\",\"version\":\"1.0\","
+            + "\"requested_attributes\":{\"attr_name\":{\"name\":\"name\"}},\"requested_predicates\":{}},"
+            + "\"status\":\"" + status + "\",\"createdAt\":\"2024-04-01T12:00:00Z\",\"proofReceived\":null,"
+            + "\"verificationResult\":" + verificationResult + ",\"acaPyTrustValidation\":true}";
+    }
+    
+    private static BackendProtocol.VerificationStatus status(String json) throws IOException {
+        BackendProtocol.Decoded<BackendProtocol.VerificationStatus> decoded =
+            BackendProtocol.decode(200, new StringReader(json), BackendProtocol.VerificationStatus.class);
+        assertTrue(decoded.isSuccessful());
+        return decoded.body();
+    }
+    
+    @Test
+    void sessionStatusPendingIsNeitherVerifiedNorFailed() throws IOException {
+        BackendProtocol.VerificationStatus status = status("{\"success\":true,\"session\":" + session("pending", "null") + "}");
+        
+        assertEquals("pending", status.status());
+        assertFalse(status.isVerified());
+        assertFalse(status.isFailed());
+        assertFalse(status.isDeclined());
+    }
+    
+    @Test
+    void sessionStatusVerifiedIsVerified() throws IOException {
+        String result = "{\"isValid\":true,\"message\":\"Credential verified\",\"details\":[],"
+            + "\"didValidation\":{\"passed\":true,\"message\":\"trusted\"}}";
+        BackendProtocol.VerificationStatus status = status("{\"success\":true,\"session\":" + session("verified", result) + "}");
+        
+        assertTrue(status.isVerified());
+        assertEquals("Credential verified", status.message());
+    }
+    
+    @Test
+    void sessionStatusFailedCarriesTheResultMessage() throws IOException {
+        String result = "{\"isValid\":false,\"message\":\"Issuer DID is not trusted\",\"details\":[]}";
+        BackendProtocol.VerificationStatus status = status("{\"success\":true,\"session\":" + session("failed", result) + "}");
+        
+        assertFalse(status.isVerified());
+        assertTrue(status.isFailed());
+        assertEquals("Issuer DID is not trusted", status.message());
+    }
+    
+    @Test
+    void sessionStatusDeclined() throws IOException {
+        BackendProtocol.VerificationStatus status = status("{\"success\":true,\"session\":" + session("declined", "null") + "}");
+        
+        assertTrue(status.isDeclined());
+        assertNull(status.message());
+    }
+    
+    @Test
+    void qrSessionFromVerifyPlayer() throws IOException {
+        BackendProtocol.VerificationStatus status = status("{\"success\":true,\"session\":{\"sessionId\":\"qr-session-1\","
+            + "\"playerName\":\"Steve\",\"qrUrl\":\"https://example.com/verify?session=qr-session-1\","
+            + "\"status\":\"verified\",\"createdAt\":\"2024-04-01T12:00:00Z\"}}");
+        
+        assertTrue(status.isVerified());
+    }
+    
+    @Test
+    void topLevelShareReply() throws IOException {
+        BackendProtocol.VerificationStatus status = status("{\"success\":true,\"verified\":true,"
+            + "\"message\":\"Credential verified\",\"details\":[],\"playerName\":\"Steve\"}");
+        
+        assertTrue(status.isVerified());
+        assertEquals("Credential verified", status.message());
+    }
+    
+    @Test
+    void notFoundReplyDecodesWithoutStatus() throws IOException {
+        BackendProtocol.Decoded<BackendProtocol.VerificationStatus> decoded = BackendProtocol.decode(404,
+            new StringReader("{\"success\":false,\"error\":\"Session not found\"}"), BackendProtocol.VerificationStatus.class);
+        
+        assertFalse(decoded.isSuccessful());
+        assertFalse(decoded.body().isVerified());
+    }
+}
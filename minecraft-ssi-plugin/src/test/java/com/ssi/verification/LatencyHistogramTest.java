@@ -0,0 +1,134 @@
+package com.ssi.verification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bucket layout and the queries /ssistats and the Prometheus exposition are built on
+class LatencyHistogramTest {
+    
+    private static long micros(long value) {
+        return TimeUnit.MICROSECONDS.toNanos(value);
+    }
+    
+    @Test
+    void valuesBelowTheLinearLimitGetABucketEach() {
+        for (int value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.lowestValue(value));
+            assertEquals(value, LatencyHistogram.highestValue(value));
+        }
+    }
+    
+    @Test
+    void firstLogBucketsStartAtTheLinearLimit() {
+        assertEquals(64, LatencyHistogram.indexOf(64));
+        assertEquals(64, LatencyHistogram.indexOf(65));
+        assertEquals(65, LatencyHistogram.indexOf(66));
+        assertEquals(64, LatencyHistogram.lowestValue(64));
+        assertEquals(65, LatencyHistogram.highestValue(64));
+        // 128..255 is split into 32 buckets of 4
+        assertEquals(96, LatencyHistogram.indexOf(128));
+        assertEquals(128, LatencyHistogram.lowestValue(96));
+        assertEquals(131, LatencyHistogram.highestValue(96));
+    }
+    
+    @Test
+    void everyBucketRoundTripsAndBucketsAreContiguous() {
+        for (int index = 0; index < LatencyHistogram.BUCKETS; index++) {
+            long lowest = LatencyHistogram.lowestValue(index);
+            long highest = LatencyHistogram.highestValue(index);
+            assertEquals(index, LatencyHistogram.indexOf(lowest), "lowest of " + index);
+            assertEquals(index, LatencyHistogram.indexOf(highest), "highest of " + index);
+            if (index > 0) {
+                assertEquals(LatencyHistogram.highestValue(index - 1) + 1, lowest, "gap before " + index);
+            }
+        }
+    }
+    
+    @Test
+    void bucketWidthStaysWithinThreePercent() {
+        for (int index = 64; index < LatencyHistogram.BUCKETS; index++) {
+            long lowest = LatencyHistogram.lowestValue(index);
+            long width = LatencyHistogram.highestValue(index) - lowest + 1;
+            assertTrue(width * 32 <= lowest, "bucket " + index + " is " + width + " wide at " + lowest);
+        }
+    }
+    
+    @Test
+    void negativeAndHugeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.count());
+        assertEquals(1, snapshot.countAtOrBelow(0));
+        assertEquals(2, snapshot.countAtOrBelow(Long.MAX_VALUE));
+        assertEquals(LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1), snapshot.maxMicros());
+    }
+    
+    @Test
+    void sumCountAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(micros(10));
+        histogram.record(micros(20));
+        histogram.record(micros(30_000));
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.count());
+        assertEquals(30_030, snapshot.sumMicros());
+        assertEquals(30_000, snapshot.maxMicros());
+    }
+    
+    @Test
+    void percentilesReportTheBucketUpperBoundCappedAtTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(micros(value * 1000L));
+        }
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        long p50 = snapshot.percentileMicros(0.5);
+        assertTrue(p50 >= 50_000 && p50 <= 50_000 * 33 / 32, "p50 " + p50);
+        long p99 = snapshot.percentileMicros(0.99);
+        assertTrue(p99 >= 99_000 && p99 <= 99_000 * 33 / 32, "p99 " + p99);
+        assertEquals(100_000, snapshot.percentileMicros(1.0));
+        assertEquals(0, new LatencyHistogram().snapshot().percentileMicros(0.5));
+    }
+    
+    @Test
+    void countAtOrBelowIsExactOnBucketEdges() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int bucket = LatencyHistogram.indexOf(5_000);
+        long lowest = LatencyHistogram.lowestValue(bucket);
+        long highest = LatencyHistogram.highestValue(bucket);
+        histogram.record(micros(lowest - 1));
+        histogram.record(micros(lowest));
+        histogram.record(micros(highest));
+        histogram.record(micros(highest + 1));
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.countAtOrBelow(lowest - 1));
+        assertEquals(3, snapshot.countAtOrBelow(highest));
+        assertEquals(4, snapshot.countAtOrBelow(LatencyHistogram.highestValue(bucket + 1)));
+    }
+    
+    @Test
+    void countAtOrBelowInterpolatesInsideABucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 0; value < 1000; value++) {
+            histogram.record(micros(value * 10L));
+        }
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        long atFiveMillis = snapshot.countAtOrBelow(5_000);
+        // 501 values are <= 5000 µs; the boundary bucket is split linearly, so allow its share
+        assertTrue(Math.abs(atFiveMillis - 501) <= 5, "count at 5ms " + atFiveMillis);
+        assertEquals(1000, snapshot.countAtOrBelow(20_000));
+        assertEquals(1, snapshot.countAtOrBelow(0));
+    }
+}
@@ -0,0 +1,124 @@
+package com.ssi.verification;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Slim records read from present-proof-2.0 records as ACA-Py returns them
+class ProofRecordReaderTest {
+    
+    private static final String CRED_DEF_ID = "AbH2V5oKsrPXbzbKKrpU3f:3:CL:2872881:University-Certificate";
+    
+    // GET /present-proof-2.0/records/{pres_ex_id} for a verifier-side exchange
+    private static String record(String presExId, String connectionId, String state, String verified) {
+        return "{\"state\":\"" + state + "\",\"created_at\":\"2024-04-01T12:00:06.123456Z\","
+            + "\"updated_at\":\"2024-04-01T12:00:30.654321Z\",\"trace\":false,"
+            + "\"pres_ex_id\":\"" + presExId + "\",\"connection_id\":\"" + connectionId + "\","
+            + "\"thread_id\":\"5c1b2f1e-58b4-4a8f-8d0e-6b2f2a4c8d11\",\"initiator\":\"self\",\"role\":\"verifier\","
+            + "\"pres_request\":{\"@type\":\"https://didcomm.org/present-proof/2.0/request-presentation\","
+            + "\"@id\":\"5c1b2f1e-58b4-4a8f-8d0e-6b2f2a4c8d11\",\"will_confirm\":true,"
+            + "\"formats\":[{\"attach_id\":\"indy\",\"format\":\"hlindy/proof-req@v2.0\"}],"
+            + "\"request_presentations~attach\":[{\"@id\":\"indy\",\"mime-type\":\"application/json\","
+            + "\"data\":{\"base64\":\"eyJuYW1lIjogIk1pbmVjcmFmdCJ9\"}}]},"
+            + "\"pres\":{\"@type\":\"https://didcomm.org/present-proof/2.0/presentation\","
+            + "\"presentations~attach\":[{\"@id\":\"indy\",\"data\":{\"base64\":\"eyJwcm9vZiI6IHt9fQ==\"}}]},"
+            + "\"by_format\":{\"pres_request\":{\"indy\":{\"name\":\"Minecraft Server Verification\",\"version\":\"1.0\","
+            + "\"nonce\":\"1234567890\",\"requested_attributes\":{\"attr_name\":{\"name\":\"name\","
+            + "\"restrictions\":[{\"cred_def_id\":\"" + CRED_DEF_ID + "\"}]}},\"requested_predicates\":{}}},"
+            + "\"pres\":{\"indy\":{\"proof\":{\"proofs\":[{\"primary_proof\":{\"eq_proof\":{\"revealed_attrs\":"
+            + "{\"name\":\"123456\"},\"a_prime\":\"987\",\"e\":\"654\",\"v\":\"321\",\"m\":{\"master_secret\":\"111\"},"
+            + "\"m2\":\"222\"},\"ge_proofs\":[]},\"non_revoc_proof\":null}],"
+            + "\"aggregated_proof\":{\"c_hash\":\"333\",\"c_list\":[[1,2,3],[4,5,6]]}},"
+            + "\"requested_proof\":{\"revealed_attrs\":{\"attr_name\":{\"sub_proof_index\":0,\"raw\":\"Alice\","
+            + "\"encoded\":\"123456\"}},\"self_attested_attrs\":{},\"unrevealed_attrs\":{},\"predicates\":{}},"
+            + "\"identifiers\":[{\"schema_id\":\"AbH2V5oKsrPXbzbKKrpU3f:2:University-Certificate:1.0\","
+            + "\"cred_def_id\":\"" + CRED_DEF_ID + "\",\"rev_reg_id\":null,\"timestamp\":null}]}}},"
+            + (verified != null ? "\"verified\":\"" + verified + "\",\"verified_msgs\":[]," : "")
+            + "\"auto_present\":false,\"auto_verify\":false,\"auto_remove\":false}";
+    }
+    
+    @Test
+    void keepsTheFieldsTheProofStagesRead() throws IOException {
+        JsonObject record = ProofRecordReader.readRecord(new StringReader(
+            record("pres-1", "conn-1", "done", "true")));
+        
+        assertEquals("done", record.get("state").getAsString());
+        assertEquals("pres-1", record.get("pres_ex_id").getAsString());
+        assertEquals("conn-1", record.get("connection_id").getAsString());
+        assertEquals("true", record.get("verified").getAsString());
+        
+        JsonArray identifiers = record.getAsJsonObject("by_format").getAsJsonObject("pres")
+            .getAsJsonObject("indy").getAsJsonArray("identifiers");
+        assertEquals(1, identifiers.size());
+        assertEquals(CRED_DEF_ID, identifiers.get(0).getAsJsonObject().get("cred_def_id").getAsString());
+    }
+    
+    @Test
+    void dropsEverythingElse() throws IOException {
+        JsonObject record = ProofRecordReader.readRecord(new StringReader(
+            record("pres-1", "conn-1", "done", "false")));
+        
+        assertEquals(5, record.size());
+        assertFalse(record.has("pres_request"));
+        assertFalse(record.has("verified_msgs"));
+        assertEquals(1, record.getAsJsonObject("by_format").size());
+        assertEquals(1, record.getAsJsonObject("by_format").getAsJsonObject("pres").getAsJsonObject("indy").size());
+        assertEquals("false", record.get("verified").getAsString());
+    }
+    
+    @Test
+    void verifiedIsAbsentBeforeTheExchangeIsDone() throws IOException {
+        JsonObject record = ProofRecordReader.readRecord(new StringReader(
+            record("pres-1", "conn-1", "presentation-received", null)));
+        
+        assertEquals("presentation-received", record.get("state").getAsString());
+        assertFalse(record.has("verified"));
+    }
+    
+    @Test
+    void booleanVerifiedIsKeptAsText() throws IOException {
+        JsonObject record = ProofRecordReader.readRecord(new StringReader(
+            "{\"state\":\"done\",\"pres_ex_id\":\"pres-1\",\"verified\":true}"));
+        
+        assertEquals("true", record.get("verified").getAsString());
+    }
+    
+    @Test
+    void readsEveryRecordInAResultsList() throws IOException {
+        String body = "{\"results\":[" + record("pres-1", "conn-1", "request-sent", null) + ","
+            + record("pres-2", "conn-2", "done", "true") + "]}";
+        List<JsonObject> records = new ArrayList<>();
+        
+        int count = ProofRecordReader.readResults(new StringReader(body), records::add);
+        
+        assertEquals(2, count);
+        assertEquals("request-sent", records.get(0).get("state").getAsString());
+        assertEquals("conn-2", records.get(1).get("connection_id").getAsString());
+        assertEquals("true", records.get(1).get("verified").getAsString());
+    }
+    
+    @Test
+    void stopsWhenTheSinkDeclines() throws IOException {
+        String body = "{\"results\":[" + record("pres-1", "conn-1", "done", "true") + ","
+            + record("pres-2", "conn-2", "done", "true") + "]}";
+        List<JsonObject> records = new ArrayList<>();
+        
+        int count = ProofRecordReader.readResults(new StringReader(body), record -> {
+            records.add(record);
+            return false;
+        });
+        
+        assertEquals(1, count);
+        assertEquals(1, records.size());
+        assertTrue(records.get(0).has("pres_ex_id"));
+    }
+}
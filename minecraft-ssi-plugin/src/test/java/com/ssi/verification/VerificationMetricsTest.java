@@ -0,0 +1,150 @@
+package com.ssi.verification;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The Prometheus text exposition and the in-flight bookkeeping behind it
+class VerificationMetricsTest {
+    
+    private static final Pattern SAMPLE = Pattern.compile("([a-zA-Z_:][a-zA-Z0-9_:]*)(\\{[^}]*})? (-?[0-9.]+(?:[eE][-+]?[0-9]+)?)");
+    
+    private static List<String> lines(String text) {
+        assertTrue(text.endsWith("\n"), "exposition must end with a newline");
+        return List.of(text.split("\n"));
+    }
+    
+    private static List<Long> bucketCounts(String text, String series) {
+        List<Long> counts = new ArrayList<>();
+        for (String line : lines(text)) {
+            if (line.startsWith(series + "_bucket{")) {
+                counts.add(Long.parseLong(line.substring(line.lastIndexOf(' ') + 1)));
+            }
+        }
+        return counts;
+    }
+    
+    private static String sample(String text, String prefix) {
+        for (String line : lines(text)) {
+            if (line.startsWith(prefix + " ")) return line.substring(prefix.length() + 1);
+        }
+        throw new AssertionError("no sample " + prefix);
+    }
+    
+    @Test
+    void everyLineIsACommentOrAWellFormedSample() {
+        VerificationMetrics metrics = new VerificationMetrics();
+        metrics.gauge("ssi_test_gauge", "A gauge", () -> 7);
+        metrics.recordStage(VerificationMetrics.Stage.CONNECTION, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(40));
+        metrics.recordBackendCall("acapy", "GET", HttpUrl.get("http://localhost:8021/connections/3fa85f64-5717-4562-b3fc-2c963f66afa6"),
+            TimeUnit.MILLISECONDS.toNanos(12), false);
+        
+        String text = metrics.prometheusText();
+        List<String> typed = new ArrayList<>();
+        for (String line : lines(text)) {
+            if (line.startsWith("# HELP ")) continue;
+            if (line.startsWith("# TYPE ")) {
+                String[] parts = line.split(" ");
+                assertEquals(4, parts.length, line);
+                assertTrue(List.of("histogram", "counter", "gauge").contains(parts[3]), line);
+                assertTrue(!typed.contains(parts[2]), "TYPE repeated for " + parts[2]);
+                typed.add(parts[2]);
+                continue;
+            }
+            Matcher matcher = SAMPLE.matcher(line);
+            assertTrue(matcher.matches(), "malformed sample: " + line);
+            String name = matcher.group(1);
+            String family = name.replaceAll("_(bucket|sum|count)$", "");
+            assertTrue(typed.contains(name) || typed.contains(family), "sample before its TYPE: " + line);
+        }
+        assertEquals("7", sample(text, "ssi_test_gauge"));
+    }
+    
+    @Test
+    void histogramBucketsAreCumulativeAndEndInInf() {
+        VerificationMetrics metrics = new VerificationMetrics();
+        UUID player = new UUID(1, 2);
+        metrics.begin(player);
+        metrics.finish(player, VerificationMetrics.Outcome.VERIFIED);
+        
+        String text = metrics.prometheusText();
+        List<Long> buckets = bucketCounts(text, "ssi_verification_time_to_verified_seconds");
+        assertEquals(16, buckets.size());
+        for (int i = 1; i < buckets.size(); i++) {
+            assertTrue(buckets.get(i) >= buckets.get(i - 1), "buckets must not decrease: " + buckets);
+        }
+        assertEquals(1, (long) buckets.get(buckets.size() - 1));
+        assertTrue(text.contains("ssi_verification_time_to_verified_seconds_bucket{le=\"0.005\"} "));
+        assertTrue(text.contains("ssi_verification_time_to_verified_seconds_bucket{le=\"+Inf\"} 1\n"));
+        assertEquals("1", sample(text, "ssi_verification_time_to_verified_seconds_count"));
+        assertEquals("1", sample(text, "ssi_verification_outcomes_total{outcome=\"verified\"}"));
+        assertEquals("0", sample(text, "ssi_verification_outcomes_total{outcome=\"timeout\"}"));
+    }
+    
+    @Test
+    void sumIsInSeconds() {
+        VerificationMetrics metrics = new VerificationMetrics();
+        metrics.recordBackendCall("webwallet", "POST", HttpUrl.get("http://localhost:3001/api/minecraft/verify"),
+            TimeUnit.MILLISECONDS.toNanos(1500), false);
+        metrics.recordBackendCall("webwallet", "POST", HttpUrl.get("http://localhost:3001/api/minecraft/verify"),
+            TimeUnit.MICROSECONDS.toNanos(250), true);
+        
+        String text = metrics.prometheusText();
+        String labels = "{backend=\"webwallet\",method=\"POST\",route=\"/api/minecraft/verify\"}";
+        assertEquals("1.50025", sample(text, "ssi_backend_request_duration_seconds_sum" + labels));
+        assertEquals("2", sample(text, "ssi_backend_request_duration_seconds_count" + labels));
+        assertEquals("1", sample(text, "ssi_backend_request_failures_total" + labels));
+    }
+    
+    @Test
+    void stagesAreLabelledAndPoolRefillsAreSeparate() {
+        VerificationMetrics metrics = new VerificationMetrics();
+        metrics.recordStage(VerificationMetrics.Stage.INVITATION_POOL, System.nanoTime());
+        
+        String text = metrics.prometheusText();
+        assertEquals("1", sample(text, "ssi_verification_stage_duration_seconds_count{stage=\"invitation_pool\"}"));
+        assertEquals("0", sample(text, "ssi_verification_stage_duration_seconds_count{stage=\"invitation\"}"));
+    }
+    
+    @Test
+    void recordIdsInRoutesAreCollapsed() {
+        assertEquals("/connections/:id", VerificationMetrics.route(
+            HttpUrl.get("http://localhost:8021/connections/3fa85f64-5717-4562-b3fc-2c963f66afa6")));
+        assertEquals("/present-proof-2.0/records/:id/verify-presentation", VerificationMetrics.route(
+            HttpUrl.get("http://localhost:8021/present-proof-2.0/records/b6a8f2d0-1c1e-4f5a-9a57-0d5b1f3c2e11/verify-presentation")));
+        assertEquals("/api/minecraft/verify/:id", VerificationMetrics.route(
+            HttpUrl.get("http://localhost:3001/api/minecraft/verify/web_1712000000000_Steve")));
+        assertEquals("/v2/create-invitation", VerificationMetrics.route(HttpUrl.get("http://localhost:4002/v2/create-invitation")));
+        assertEquals("/", VerificationMetrics.route(HttpUrl.get("http://localhost:4002/")));
+    }
+    
+    @Test
+    void beginIsBalancedByFinishOrCancel() {
+        VerificationMetrics metrics = new VerificationMetrics();
+        UUID first = new UUID(1, 1);
+        UUID second = new UUID(2, 2);
+        metrics.begin(first);
+        metrics.begin(second);
+        metrics.begin(second);
+        assertEquals(2, metrics.inProgress());
+        
+        metrics.cancel(first);
+        assertEquals(1, metrics.inProgress());
+        metrics.finish(second, VerificationMetrics.Outcome.TIMEOUT);
+        assertEquals(0, metrics.inProgress());
+        
+        VerificationMetrics.Summary summary = metrics.summary();
+        assertEquals(1, summary.outcome(VerificationMetrics.Outcome.TIMEOUT));
+        assertEquals(0, summary.outcome(VerificationMetrics.Outcome.FAILED));
+        assertEquals(0, summary.timeToVerified().latency().count());
+    }
+}
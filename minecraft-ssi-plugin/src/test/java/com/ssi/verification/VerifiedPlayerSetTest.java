@@ -0,0 +1,275 @@
+package com.ssi.verification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Probing, backward-shift deletion, growth and lock-free reads of the verified-player table
+class VerifiedPlayerSetTest {
+    
+    private static final long NOW = 1_712_000_000L;
+    
+    // Random UUIDs whose home slot in a table of the given size is the wanted one
+    private static List<UUID> homedAt(int slot, int slots, int count, Random random) {
+        List<UUID> found = new ArrayList<>();
+        while (found.size() < count) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            if ((VerifiedPlayerSet.hash(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) & (slots - 1)) == slot) {
+                found.add(uuid);
+            }
+        }
+        return found;
+    }
+    
+    private static int tier(VerifiedPlayerSet set, UUID uuid) {
+        return set.tier(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), NOW);
+    }
+    
+    @Test
+    void putThenLookUp() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        UUID alice = new UUID(1, 2);
+        UUID bob = new UUID(3, 4);
+        
+        set.put(alice, 0, VerifiedPlayer.TIER_WALLET);
+        
+        assertEquals(VerifiedPlayer.TIER_WALLET, tier(set, alice));
+        assertTrue(set.contains(alice));
+        assertEquals(VerifiedPlayerSet.NOT_VERIFIED, tier(set, bob));
+        assertFalse(set.contains(bob));
+        assertEquals(1, set.size());
+    }
+    
+    @Test
+    void putOverwritesWithoutGrowing() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        UUID alice = new UUID(1, 2);
+        
+        set.put(alice, 0, 1);
+        set.put(alice, NOW + 60, 2);
+        
+        assertEquals(1, set.size());
+        assertEquals(2, tier(set, alice));
+    }
+    
+    @Test
+    void rejectsTheNilUuidAndOversizedTiers() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        
+        assertThrows(IllegalArgumentException.class, () -> set.put(new UUID(0, 0), 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> set.put(new UUID(1, 1), 0, 256));
+        assertThrows(IllegalArgumentException.class, () -> set.put(new UUID(1, 1), 0, -1));
+        assertEquals(VerifiedPlayerSet.NOT_VERIFIED, tier(set, new UUID(0, 0)));
+        assertFalse(set.remove(new UUID(0, 0)));
+        assertEquals(0, set.size());
+    }
+    
+    @Test
+    void expiredEntriesAreNotVerified() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        UUID alice = new UUID(1, 2);
+        
+        set.put(alice, NOW + 10, 3);
+        
+        assertEquals(3, set.tier(alice.getMostSignificantBits(), alice.getLeastSignificantBits(), NOW + 9));
+        assertEquals(VerifiedPlayerSet.NOT_VERIFIED, set.tier(alice.getMostSignificantBits(), alice.getLeastSignificantBits(), NOW + 10));
+        assertEquals(1, set.size());
+    }
+    
+    @Test
+    void collidingRunWrapsAroundTheEndOfTheTable() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        int slots = set.capacity();
+        Random random = new Random(6);
+        List<UUID> run = homedAt(slots - 1, slots, 4, random);
+        UUID homedAtZero = homedAt(0, slots, 1, random).get(0);
+        
+        // Occupies the last slot, then 0, 1 and 2; the slot-0 entry lands after them at 3
+        for (int i = 0; i < run.size(); i++) {
+            set.put(run.get(i), 0, i + 1);
+        }
+        set.put(homedAtZero, 0, 9);
+        
+        for (int i = 0; i < run.size(); i++) {
+            assertEquals(i + 1, tier(set, run.get(i)));
+        }
+        assertEquals(9, tier(set, homedAtZero));
+        assertEquals(slots, set.capacity());
+    }
+    
+    @Test
+    void deletingAcrossTheWrapShiftsTheRunBack() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        int slots = set.capacity();
+        Random random = new Random(7);
+        List<UUID> run = homedAt(slots - 2, slots, 3, random);
+        List<UUID> homedAtZero = homedAt(0, slots, 2, random);
+        List<UUID> all = new ArrayList<>(run);
+        all.addAll(homedAtZero);
+        for (UUID uuid : all) {
+            set.put(uuid, 0, 1);
+        }
+        
+        // Removing the head of the run leaves a hole before the wrap; everything after
+        // it must still be reachable from its home slot
+        assertTrue(set.remove(run.get(0)));
+        assertFalse(set.contains(run.get(0)));
+        for (UUID uuid : all.subList(1, all.size())) {
+            assertTrue(set.contains(uuid), "lost " + uuid);
+        }
+        
+        // And a hole right after the wrap, where the slot-0 entries must not move before their home
+        assertTrue(set.remove(run.get(2)));
+        assertTrue(set.contains(run.get(1)));
+        assertTrue(set.contains(homedAtZero.get(0)));
+        assertTrue(set.contains(homedAtZero.get(1)));
+        
+        for (UUID uuid : List.of(run.get(1), homedAtZero.get(0), homedAtZero.get(1))) {
+            assertTrue(set.remove(uuid));
+        }
+        assertFalse(set.remove(run.get(1)));
+        assertEquals(0, set.size());
+        for (UUID uuid : all) {
+            assertFalse(set.contains(uuid));
+        }
+    }
+    
+    @Test
+    void purgeRemovesExpiredEntriesInsideAWrappedRun() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        int slots = set.capacity();
+        List<UUID> run = homedAt(slots - 1, slots, 5, new Random(8));
+        for (int i = 0; i < run.size(); i++) {
+            set.put(run.get(i), i % 2 == 0 ? NOW - 1 : 0, 1);
+        }
+        
+        assertEquals(3, set.purgeExpired(NOW));
+        
+        assertEquals(2, set.size());
+        assertEquals(1, tier(set, run.get(1)));
+        assertEquals(1, tier(set, run.get(3)));
+        assertFalse(set.remove(run.get(0)));
+        assertEquals(0, set.purgeExpired(NOW));
+    }
+    
+    @Test
+    void growsPastTheLoadFactorAndKeepsEveryEntry() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        int initial = set.capacity();
+        Random random = new Random(9);
+        Map<UUID, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            set.put(uuid, 0, i & 0xff);
+            expected.put(uuid, i & 0xff);
+        }
+        
+        assertEquals(1000, set.size());
+        assertTrue(set.capacity() > initial);
+        assertTrue(set.size() <= set.capacity() * 0.6);
+        assertEquals(1, Integer.bitCount(set.capacity()));
+        for (Map.Entry<UUID, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), tier(set, entry.getKey()));
+        }
+    }
+    
+    @Test
+    void matchesAHashMapUnderRandomChurn() {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        Random random = new Random(10);
+        // A small key space keeps runs long and makes wraps and shifts frequent
+        UUID[] keys = new UUID[40];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        Map<UUID, Integer> expected = new HashMap<>();
+        
+        for (int step = 0; step < 20_000; step++) {
+            UUID key = keys[random.nextInt(keys.length)];
+            if (random.nextBoolean()) {
+                int tier = random.nextInt(256);
+                set.put(key, 0, tier);
+                expected.put(key, tier);
+            } else {
+                assertEquals(expected.remove(key) != null, set.remove(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (UUID key : keys) {
+            Integer tier = expected.get(key);
+            assertEquals(tier == null ? VerifiedPlayerSet.NOT_VERIFIED : tier, tier(set, key));
+        }
+    }
+    
+    @Test
+    void readersSeeStableEntriesWhileAWriterChurnsAndResizes() throws InterruptedException {
+        VerifiedPlayerSet set = new VerifiedPlayerSet(16);
+        Random random = new Random(11);
+        UUID[] stable = new UUID[64];
+        for (int i = 0; i < stable.length; i++) {
+            stable[i] = new UUID(random.nextLong(), random.nextLong());
+            set.put(stable[i], 0, i & 0xff);
+        }
+        UUID[] churn = new UUID[4096];
+        for (int i = 0; i < churn.length; i++) {
+            churn[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                    while (writing.get() && failure.get() == null) {
+                        for (int i = 0; i < stable.length; i++) {
+                            int seen = tier(set, stable[i]);
+                            if (seen != (i & 0xff)) {
+                                failure.compareAndSet(null, "entry " + i + " read as " + seen);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "reader-" + r);
+            reader.start();
+            readers.add(reader);
+        }
+        
+        start.countDown();
+        for (int round = 0; round < 20; round++) {
+            for (UUID uuid : churn) {
+                set.put(uuid, 0, 1);
+            }
+            for (UUID uuid : churn) {
+                set.remove(uuid);
+            }
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(reader.isAlive(), reader.getName() + " did not stop");
+        }
+        
+        assertNull(failure.get());
+        assertEquals(stable.length, set.size());
+    }
+}
@@ -0,0 +1,28 @@
+#!/bin/bash
+# Build and run the plugin's JMH benchmarks at the checked-out commit
+#
+#   scripts/run-benchmarks.sh                     # every benchmark
+#   scripts/run-benchmarks.sh JsonParsing -f 1    # extra arguments go to JMH (filter, forks, ...)
+#
+# Results land in minecraft-ssi-plugin/benchmarks/results/<commit>.json, so runs at two commits
+# can be compared side by side (for example at https://jmh.morethan.io).
+
+set -e
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BENCHMARKS="$ROOT/minecraft-ssi-plugin/benchmarks"
+COMMIT=$(git -C "$ROOT" rev-parse --short HEAD)
+if [ -n "$(git -C "$ROOT" status --porcelain -- minecraft-ssi-plugin/src minecraft-ssi-plugin/benchmarks/src)" ]; then
+    COMMIT="$COMMIT-dirty"
+fi
+
+echo "🔨 Building benchmarks at $COMMIT"
+mvn -B -q -f "$BENCHMARKS/pom.xml" clean package
+
+mkdir -p "$BENCHMARKS/results"
+RESULTS="$BENCHMARKS/results/$COMMIT.json"
+
+echo "⏱️  Running benchmarks"
+java -jar "$BENCHMARKS/target/benchmarks.jar" -rf json -rff "$RESULTS" "$@"
+
+echo "✅ Results written to $RESULTS"